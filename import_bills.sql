@@ -1,8 +1,10 @@
 -- Import bills data from SQL Server to PostgreSQL
 -- Run with: psql -d nhatromanagement -f import_bills.sql
 
--- Insert bills
-INSERT INTO bill (id, bill_month, bill_year, electricity_cost, electricity_kwh_current, electricity_kwh_previous, room_rent, total_amount, trash_fee, water_cost, waterm3current, waterm3previous, wifi_fee, tenant_id, occupant_name, paid) VALUES
+-- Insert bills, amounts in whole VND and meter readings in tenths of a unit
+INSERT INTO bill (id, bill_month, bill_year, electricity_cost, electricity_kwh_current, electricity_kwh_previous, room_rent, total_amount, trash_fee, water_cost, waterm3current, waterm3previous, wifi_fee, tenant_id, occupant_name, paid)
+SELECT id, bill_month, bill_year, round(electricity_cost), round(electricity_kwh_current * 10), round(electricity_kwh_previous * 10), round(room_rent), round(total_amount), round(trash_fee), round(water_cost), round(waterm3current * 10), round(waterm3previous * 10), round(wifi_fee), tenant_id, occupant_name, paid
+FROM (VALUES
 (10006, 4, 2025, 423500.0, 3605.0, 3484.0, 3000000.0, 3604500.0, 30000.0, 151000.0, 285.0, 273.0, 0.0, 10003, 'Ot 1', false),
 (10007, 4, 2025, 500500.0, 5830.0, 5687.0, 3000000.0, 3751500.0, 30000.0, 221000.0, 489.0, 472.0, 0.0, 10004, 'Ot 2', false),
 (10008, 4, 2025, 374500.0, 10553.0, 10446.0, 1600000.0, 2069500.0, 30000.0, 65000.0, 168.0, 163.0, 0.0, 10005, '1A', false),
@@ -142,7 +144,8 @@ INSERT INTO bill (id, bill_month, bill_year, electricity_cost, electricity_kwh_c
 (70016, 1, 2026, 192500.0, 8911.0, 8856.0, 1600000.0, 1965500.0, 30000.0, 143000.0, 522.0, 511.0, 0.0, 10013, '5A', false),
 (70017, 1, 2026, 280000.0, 5834.0, 5754.0, 1600000.0, 1975000.0, 30000.0, 65000.0, 349.0, 344.0, 0.0, 10014, '5B', false),
 (70018, 1, 2026, 752500.0, 9670.0, 9455.0, 1600000.0, 2525500.0, 30000.0, 143000.0, 672.0, 661.0, 0.0, 10015, '6A', false),
-(70019, 1, 2026, 514500.0, 9875.0, 9728.0, 1600000.0, 2417500.0, 30000.0, 273000.0, 1367.0, 1346.0, 0.0, 10016, '6B', false);
+(70019, 1, 2026, 514500.0, 9875.0, 9728.0, 1600000.0, 2417500.0, 30000.0, 273000.0, 1367.0, 1346.0, 0.0, 10016, '6B', false)
+) AS v(id, bill_month, bill_year, electricity_cost, electricity_kwh_current, electricity_kwh_previous, room_rent, total_amount, trash_fee, water_cost, waterm3current, waterm3previous, wifi_fee, tenant_id, occupant_name, paid);
 
--- Update sequence
-SELECT setval('bill_id_seq', (SELECT MAX(id) FROM bill));
+-- Move the id sequences past the imported rows
+\ir migrate_id_sequences.sql
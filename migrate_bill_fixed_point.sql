@@ -0,0 +1,63 @@
+-- Store bill amounts as whole VND and meter readings as tenths of a unit
+-- Run with: psql -d nhatromanagement -f migrate_bill_fixed_point.sql
+--
+-- Converts the double precision columns of older databases to bigint. It only
+-- does so while they are still double precision, so running it twice does not
+-- scale the readings twice.
+
+BEGIN;
+
+DO $$
+BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_name = 'bill' AND column_name = 'electricity_kwh_current') = 'double precision' THEN
+        ALTER TABLE bill
+            ALTER COLUMN electricity_kwh_previous TYPE bigint USING round(electricity_kwh_previous * 10),
+            ALTER COLUMN electricity_kwh_current TYPE bigint USING round(electricity_kwh_current * 10),
+            ALTER COLUMN waterm3previous TYPE bigint USING round(waterm3previous * 10),
+            ALTER COLUMN waterm3current TYPE bigint USING round(waterm3current * 10),
+            ALTER COLUMN trash_fee TYPE bigint USING round(trash_fee),
+            ALTER COLUMN wifi_fee TYPE bigint USING round(wifi_fee),
+            ALTER COLUMN room_rent TYPE bigint USING round(room_rent),
+            ALTER COLUMN electricity_cost TYPE bigint USING round(electricity_cost),
+            ALTER COLUMN water_cost TYPE bigint USING round(water_cost),
+            ALTER COLUMN total_amount TYPE bigint USING round(total_amount);
+    END IF;
+END $$;
+
+-- The rollup only holds sums of the bill amounts, recompute it exactly
+DO $$
+BEGIN
+    IF (SELECT data_type FROM information_schema.columns
+        WHERE table_name = 'monthly_bill_rollup' AND column_name = 'total_amount') = 'double precision' THEN
+        ALTER TABLE monthly_bill_rollup
+            ALTER COLUMN total_room_rent TYPE bigint USING 0,
+            ALTER COLUMN total_electricity_cost TYPE bigint USING 0,
+            ALTER COLUMN total_water_cost TYPE bigint USING 0,
+            ALTER COLUMN total_trash_fee TYPE bigint USING 0,
+            ALTER COLUMN total_wifi_fee TYPE bigint USING 0,
+            ALTER COLUMN total_amount TYPE bigint USING 0,
+            ALTER COLUMN unpaid_amount TYPE bigint USING 0;
+    END IF;
+END $$;
+
+UPDATE monthly_bill_rollup r
+SET total_room_rent = s.room_rent,
+    total_electricity_cost = s.electricity_cost,
+    total_water_cost = s.water_cost,
+    total_trash_fee = s.trash_fee,
+    total_wifi_fee = s.wifi_fee,
+    total_amount = s.total_amount,
+    unpaid_amount = s.unpaid_amount
+FROM (
+    SELECT bill_year, bill_month,
+           SUM(room_rent) AS room_rent, SUM(electricity_cost) AS electricity_cost,
+           SUM(water_cost) AS water_cost, SUM(trash_fee) AS trash_fee, SUM(wifi_fee) AS wifi_fee,
+           SUM(total_amount) AS total_amount,
+           SUM(CASE WHEN paid THEN 0 ELSE total_amount END) AS unpaid_amount
+    FROM bill
+    GROUP BY bill_year, bill_month
+) s
+WHERE r.bill_year = s.bill_year AND r.bill_month = s.bill_month;
+
+COMMIT;
@@ -0,0 +1,35 @@
+-- Enforce one bill per tenant per billing period
+-- Run with: psql -d nhatromanagement -f migrate_bill_unique_period.sql
+--
+-- Existing duplicates must be resolved first. The script stops without changing
+-- anything while there are any, listing the rooms and periods concerned. List
+-- them yourself with:
+--   SELECT tenant_id, bill_year, bill_month, array_agg(id ORDER BY id)
+--   FROM bill GROUP BY tenant_id, bill_year, bill_month HAVING count(*) > 1;
+
+BEGIN;
+
+DO $$
+DECLARE
+    duplicates text;
+BEGIN
+    SELECT string_agg(format('tenant %s, %s/%s: bills %s', tenant_id, bill_month, bill_year, ids), E'\n')
+    INTO duplicates
+    FROM (SELECT tenant_id, bill_year, bill_month, array_agg(id ORDER BY id) AS ids
+          FROM bill
+          GROUP BY tenant_id, bill_year, bill_month
+          HAVING count(*) > 1
+          ORDER BY tenant_id, bill_year, bill_month) d;
+
+    IF duplicates IS NOT NULL THEN
+        RAISE EXCEPTION 'Several bills for the same room and month, resolve them first:%', E'\n' || duplicates;
+    END IF;
+END
+$$;
+
+-- Same name as the constraint declared on the Bill entity, so schema updates
+-- recognise it. The index also serves the per-tenant bill lookups.
+ALTER TABLE bill DROP CONSTRAINT IF EXISTS uk_bill_tenant_period;
+ALTER TABLE bill ADD CONSTRAINT uk_bill_tenant_period UNIQUE (tenant_id, bill_year, bill_month);
+
+COMMIT;
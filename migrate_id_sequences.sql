@@ -0,0 +1,25 @@
+-- Move bill and tenant ids from identity columns to pooled sequences
+-- Run with: psql -d nhatromanagement -f migrate_id_sequences.sql
+--
+-- Run it before starting the application on an existing database, and again
+-- after importing rows with explicit ids (import_data.sql, import_bills.sql).
+-- INCREMENT BY must equal app.id.allocation-size.
+
+BEGIN;
+
+-- Ids are assigned by the application now, identity defaults would only hide
+-- inserts that bypass it
+ALTER TABLE tenant ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE bill ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS tenant_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bill_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE tenant_seq INCREMENT BY 50;
+ALTER SEQUENCE bill_seq INCREMENT BY 50;
+
+-- Each sequence value closes a block of ids, the next block starts right
+-- after the highest existing id
+SELECT setval('tenant_seq', GREATEST((SELECT MAX(id) FROM tenant), 1));
+SELECT setval('bill_seq', GREATEST((SELECT MAX(id) FROM bill), 1));
+
+COMMIT;
@@ -0,0 +1,42 @@
+package com.example.nhatromanagement.benchmark;
+
+import com.example.nhatromanagement.NhaTroManagementApplication;
+import com.example.nhatromanagement.service.BillRollupService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Starts the application against a private in-memory H2 database filled with
+ * synthetic bills.
+ */
+final class BenchmarkApplication {
+
+    private static final long SEED = 42;
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(int billCount) {
+        // Passed as command line arguments so they win over application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(NhaTroManagementApplication.class)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:bench" + billCount + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.datasource.driverClassName=org.h2.Driver",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.open-in-view=false",
+                        "--spring.thymeleaf.cache=true",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.main.banner-mode=off",
+                        "--server.port=0",
+                        "--logging.level.root=WARN");
+
+        SyntheticBillData.load(context.getBean(JdbcTemplate.class), billCount, SEED);
+        context.getBean(BillRollupService.class).rebuild();
+        return context;
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.nhatromanagement.benchmark;
+
+import com.example.nhatromanagement.model.Bill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost calculation of a single bill, as done for every bill created or edited.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BillCalculationBenchmark {
+
+    private Bill bill;
+
+    @Setup
+    public void setUp() {
+        bill = new Bill();
+        bill.setElectricityKwhPrevious(10446);
+        bill.setElectricityKwhCurrent(10553);
+        bill.setWaterM3Previous(163);
+        bill.setWaterM3Current(168);
+        bill.setRoomRent(1600000);
+        bill.setTrashFee(30000);
+        bill.setWifiFee(0);
+    }
+
+    @Benchmark
+    public long calculateCosts() {
+        bill.calculateCosts(3500, 13000);
+        return bill.getTotalAmount();
+    }
+}
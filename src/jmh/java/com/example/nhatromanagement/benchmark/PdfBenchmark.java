@@ -0,0 +1,63 @@
+package com.example.nhatromanagement.benchmark;
+
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.service.PdfService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendering of one bill to PDF. The cost does not depend on how many bills
+ * exist, so a small data set is enough.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfBenchmark {
+
+    private static final Locale LOCALE = Locale.forLanguageTag("vi");
+
+    private ConfigurableApplicationContext context;
+    private PdfService pdfService;
+    private List<Bill> bills;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(100);
+        pdfService = context.getBean(PdfService.class);
+        // Every bill of the data set, with its tenant loaded like the ZIP export does
+        bills = context.getBean(BillRepository.class).findWithTenantByFilterAfterId(null, null, null, 0L,
+                PageRequest.of(0, 100));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int generateBillPdf() throws Exception {
+        Bill bill = bills.get(next++ % bills.size());
+        return pdfService.generateBillPdf(bill, LOCALE).size();
+    }
+}
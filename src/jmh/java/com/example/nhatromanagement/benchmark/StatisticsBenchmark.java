@@ -0,0 +1,67 @@
+package com.example.nhatromanagement.benchmark;
+
+import com.example.nhatromanagement.dto.BillStatisticsDTO;
+import com.example.nhatromanagement.service.BillService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bill statistics aggregation in BillServiceImpl, as used by the statistics page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatisticsBenchmark {
+
+    @Param({ "100", "1000", "10000", "100000" })
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BillService billService;
+    private YearMonth period;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(rows);
+        billService = context.getBean(BillService.class);
+        period = YearMonth.now();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BillStatisticsDTO allTime() {
+        return billService.getStatistics(null, null);
+    }
+
+    @Benchmark
+    public BillStatisticsDTO year() {
+        return billService.getStatistics(null, period.getYear());
+    }
+
+    @Benchmark
+    public BillStatisticsDTO month() {
+        return billService.getStatistics(period.getMonthValue(), period.getYear());
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.nhatromanagement.benchmark;
+
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.Tenant;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates tenants and bills shaped like the production data in
+ * import_bills.sql: rooms renting for 1.6M or 3M VND, 60-300 kWh of
+ * electricity and 4-20 m3 of water a month, meter readings that carry over
+ * from one month to the next, and every bill paid except part of the latest
+ * month.
+ */
+final class SyntheticBillData {
+
+    // Rooms in the real house, the generator never goes below this
+    private static final int MIN_TENANTS = 14;
+
+    // Billing history per room once there are enough rows
+    private static final int MAX_MONTHS = 36;
+
+    private static final long ELECTRICITY_PRICE = 3000;
+    private static final long WATER_PRICE = 13000;
+
+    private static final String INSERT_BILL_SQL = "INSERT INTO bill (id, tenant_id, bill_month, bill_year, "
+            + "electricity_kwh_previous, electricity_kwh_current, waterm3previous, waterm3current, "
+            + "trash_fee, wifi_fee, room_rent, electricity_cost, water_cost, total_amount, occupant_name, paid) "
+            + "VALUES (NEXT VALUE FOR bill_seq, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private SyntheticBillData() {
+    }
+
+    /**
+     * Inserts the given number of bills, spread over enough tenants that nobody
+     * has more than {@value #MAX_MONTHS} months of history, ending with the
+     * current month.
+     */
+    static void load(JdbcTemplate jdbcTemplate, int billCount, long seed) {
+        Random random = new Random(seed);
+        int tenantCount = Math.max(MIN_TENANTS, (billCount + MAX_MONTHS - 1) / MAX_MONTHS);
+        int months = (billCount + tenantCount - 1) / tenantCount;
+
+        List<Object[]> tenants = new ArrayList<>();
+        for (int i = 0; i < tenantCount; i++) {
+            tenants.add(new Object[] { roomName(i) });
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO tenant (id, name) VALUES (NEXT VALUE FOR tenant_seq, ?)", tenants);
+        List<Long> tenantIds = jdbcTemplate.queryForList("SELECT id FROM tenant ORDER BY id", Long.class);
+
+        YearMonth latest = YearMonth.now();
+        YearMonth first = latest.minusMonths(months - 1L);
+        List<Bill> batch = new ArrayList<>();
+        int remaining = billCount;
+        for (int t = 0; t < tenantCount && remaining > 0; t++) {
+            Tenant tenant = new Tenant();
+            tenant.setId(tenantIds.get(t));
+            long roomRent = t < 2 ? 3000000 : 1600000;
+            double electricity = 2000 + random.nextInt(9000);
+            double water = 100 + random.nextInt(1000);
+            for (int m = 0; m < months && remaining > 0; m++, remaining--) {
+                YearMonth period = first.plusMonths(m);
+                Bill bill = new Bill();
+                bill.setTenant(tenant);
+                bill.setBillYear(period.getYear());
+                bill.setBillMonth(period.getMonthValue());
+                bill.setElectricityKwhPrevious(electricity);
+                electricity += 60 + random.nextInt(240);
+                bill.setElectricityKwhCurrent(electricity);
+                bill.setWaterM3Previous(water);
+                water += 4 + random.nextInt(17);
+                bill.setWaterM3Current(water);
+                bill.setRoomRent(roomRent);
+                bill.setTrashFee(random.nextBoolean() ? 20000 : 30000);
+                bill.setWifiFee(random.nextInt(4) == 0 ? 50000 : 0);
+                bill.setOccupantName(roomName(t));
+                bill.setPaid(!period.equals(latest) || random.nextInt(3) > 0);
+                bill.calculateCosts(ELECTRICITY_PRICE, WATER_PRICE);
+                batch.add(bill);
+            }
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_BILL_SQL, batch, 1000, (ps, bill) -> {
+            ps.setLong(1, bill.getTenant().getId());
+            ps.setInt(2, bill.getBillMonth());
+            ps.setInt(3, bill.getBillYear());
+            ps.setLong(4, bill.getElectricityKwhPreviousTenths());
+            ps.setLong(5, bill.getElectricityKwhCurrentTenths());
+            ps.setLong(6, bill.getWaterM3PreviousTenths());
+            ps.setLong(7, bill.getWaterM3CurrentTenths());
+            ps.setLong(8, bill.getTrashFee());
+            ps.setLong(9, bill.getWifiFee());
+            ps.setLong(10, bill.getRoomRent());
+            ps.setLong(11, bill.getElectricityCost());
+            ps.setLong(12, bill.getWaterCost());
+            ps.setLong(13, bill.getTotalAmount());
+            ps.setString(14, bill.getOccupantName());
+            ps.setBoolean(15, bill.getPaid());
+        });
+    }
+
+    private static String roomName(int index) {
+        return (index / 2 + 1) + (index % 2 == 0 ? "A" : "B");
+    }
+}
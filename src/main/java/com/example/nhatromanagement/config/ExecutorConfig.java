@@ -0,0 +1,70 @@
+package com.example.nhatromanagement.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+public class ExecutorConfig {
+
+    public static final String PDF_RENDER_EXECUTOR = "pdfRenderExecutor";
+    public static final String BILLING_RUN_EXECUTOR = "billingRunExecutor";
+    public static final String DASHBOARD_EXECUTOR = "dashboardExecutor";
+
+    /**
+     * Fixed-size pool that renders bill PDFs for archive downloads. The queue is
+     * bounded so a large export cannot pile up unbounded rendering work.
+     */
+    @Bean(name = PDF_RENDER_EXECUTOR)
+    public ThreadPoolTaskExecutor pdfRenderExecutor(
+            @Value("${app.pdf.render-threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}") int threads,
+            @Value("${app.pdf.render-queue-capacity:64}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-render-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fixed-size pool that creates the draft bills of a month-close run, one
+     * transaction per chunk of rooms. Each thread holds a database connection
+     * while it works, keep it well below the connection pool size.
+     */
+    @Bean(name = BILLING_RUN_EXECUTOR)
+    public ThreadPoolTaskExecutor billingRunExecutor(
+            @Value("${app.billing.run-threads:4}") int threads,
+            @Value("${app.billing.run-queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("billing-run-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Fixed-size pool that runs the independent queries of the dashboard at the
+     * same time, shared by all requests. Each running query holds a database
+     * connection, and a query that waits in the queue past its timeout is skipped.
+     */
+    @Bean(name = DASHBOARD_EXECUTOR)
+    public ThreadPoolTaskExecutor dashboardExecutor(
+            @Value("${app.dashboard.query-threads:4}") int threads,
+            @Value("${app.dashboard.query-queue-capacity:100}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
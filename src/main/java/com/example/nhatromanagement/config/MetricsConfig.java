@@ -0,0 +1,23 @@
+package com.example.nhatromanagement.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    public static final String SERVICE_TIMER = "app.service";
+    public static final String PDF_RENDER_TIMER = "app.pdf.render";
+
+    /**
+     * Records the methods of beans annotated with @Timed, tagged with their class
+     * and method names. Only calls through the Spring proxy are timed, not calls
+     * a service makes to its own methods.
+     */
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.nhatromanagement.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,6 +10,7 @@ import javax.sql.DataSource;
 import java.net.URI;
 import java.net.URISyntaxException;
 
+@Slf4j
 @Configuration
 @Profile("prod")
 public class RailwayDbConfig {
@@ -17,7 +19,7 @@ public class RailwayDbConfig {
     public DataSource dataSource() throws URISyntaxException {
         String databaseUrl = System.getenv("DATABASE_URL");
         if (databaseUrl == null || databaseUrl.isEmpty()) {
-            System.err.println("❌ DATABASE_URL environment variable is not set!");
+            log.error("DATABASE_URL environment variable is not set");
             throw new IllegalStateException(
                     "DATABASE_URL environment variable is required in production profile but was not found. Please configure it in Railway.");
         }
@@ -26,9 +28,11 @@ public class RailwayDbConfig {
             URI dbUri = new URI(databaseUrl);
             String username = dbUri.getUserInfo().split(":")[0];
             String password = dbUri.getUserInfo().split(":")[1];
-            String dbUrl = "jdbc:postgresql://" + dbUri.getHost() + ":" + dbUri.getPort() + dbUri.getPath();
+            String dbUrl = "jdbc:postgresql://" + dbUri.getHost() + ":" + dbUri.getPort() + dbUri.getPath()
+                    // Let the driver rewrite batched inserts into multi-row statements
+                    + "?reWriteBatchedInserts=true";
 
-            System.out.println("✅ Configured DataSource from DATABASE_URL: " + dbUrl);
+            log.info("Configured DataSource from DATABASE_URL: {}", dbUrl);
 
             return DataSourceBuilder.create()
                     .url(dbUrl)
@@ -36,7 +40,7 @@ public class RailwayDbConfig {
                     .password(password)
                     .build();
         } catch (Exception e) {
-            System.err.println("❌ Failed to parse DATABASE_URL: " + e.getMessage());
+            log.error("Failed to parse DATABASE_URL: {}", e.getMessage());
             throw e;
         }
     }
@@ -2,9 +2,12 @@ package com.example.nhatromanagement.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -45,6 +48,24 @@ public class SecurityConfig {
                 return new InMemoryUserDetailsManager(admin, staff);
         }
 
+        /**
+         * Actuator endpoints are read by a metrics scraper, not a browser: HTTP basic
+         * instead of the login form, and no session.
+         */
+        @Bean
+        @Order(1)
+        public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
+                http
+                                .securityMatcher("/actuator/**")
+                                .authorizeHttpRequests(authorize -> authorize
+                                                .requestMatchers("/actuator/health").permitAll()
+                                                .anyRequest().hasRole("ADMIN"))
+                                .httpBasic(Customizer.withDefaults())
+                                .sessionManagement(session -> session
+                                                .sessionCreationPolicy(SessionCreationPolicy.STATELESS));
+                return http.build();
+        }
+
         @Bean
         public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
                 http
@@ -59,7 +80,7 @@ public class SecurityConfig {
                                                 .requestMatchers("/tenants/delete/**", "/bills/delete/**")
                                                 .hasRole("ADMIN")
                                                 .requestMatchers("/bills/add/**", "/bills/edit/**", "/bills/create",
-                                                                "/bills/update/**", "/quick-entry/**")
+                                                                "/bills/update/**", "/quick-entry/**", "/billing-runs/**")
                                                 .authenticated()
                                                 .requestMatchers("/tenants/add/**", "/tenants/edit/**",
                                                                 "/tenants/create", "/tenants/update/**")
@@ -1,22 +1,37 @@
 package com.example.nhatromanagement.controller;
 
+import com.example.nhatromanagement.dto.BillHistoryDTO;
+import com.example.nhatromanagement.dto.PageVersionDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
 import com.example.nhatromanagement.model.Bill;
 import com.example.nhatromanagement.model.Tenant;
 import com.example.nhatromanagement.service.BillService;
+import com.example.nhatromanagement.service.PageVersionService;
 import com.example.nhatromanagement.service.TenantService;
 import com.example.nhatromanagement.service.SettingService;
-import com.example.nhatromanagement.service.impl.SettingServiceImpl;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpSession;
+
+import java.security.Principal;
 import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Controller
@@ -27,14 +42,16 @@ public class BillController {
     private final TenantService tenantService;
     private final MessageSource messageSource;
     private final SettingService settingService; // Added SettingService field
+    private final PageVersionService pageVersionService;
 
     @Autowired
     public BillController(BillService billService, TenantService tenantService, MessageSource messageSource,
-            SettingService settingService) { // Added SettingService to constructor
+            SettingService settingService, PageVersionService pageVersionService) { // Added SettingService to constructor
         this.billService = billService;
         this.tenantService = tenantService;
         this.messageSource = messageSource;
         this.settingService = settingService; // Initialize SettingService
+        this.pageVersionService = pageVersionService;
     }
 
     @GetMapping
@@ -42,60 +59,23 @@ public class BillController {
             @RequestParam(value = "month", required = false) Integer month,
             @RequestParam(value = "year", required = false) Integer year,
             @RequestParam(value = "tenantId", required = false) Long tenantId,
-            Model model) {
-
-        List<Bill> bills;
-
-        // Apply filters
-        if (tenantId != null && month != null && year != null) {
-            // Filter by tenant, month, and year
-            Optional<Tenant> tenant = tenantService.getTenantById(tenantId);
-            if (tenant.isPresent()) {
-                bills = billService.getBillsByTenantAndMonthYear(tenant.get(), month, year);
-            } else {
-                bills = new java.util.ArrayList<>();
-            }
-        } else if (tenantId != null && year != null) {
-            // Filter by tenant and year
-            Optional<Tenant> tenant = tenantService.getTenantById(tenantId);
-            if (tenant.isPresent()) {
-                bills = billService.getBillsByTenantAndYear(tenant.get(), year);
-            } else {
-                bills = new java.util.ArrayList<>();
-            }
-        } else if (tenantId != null) {
-            // Filter by tenant only
-            Optional<Tenant> tenant = tenantService.getTenantById(tenantId);
-            bills = tenant.map(t -> billService.getBillsByTenant(t)).orElse(new java.util.ArrayList<>());
-        } else if (month != null && year != null) {
-            // Filter by month and year
-            bills = billService.getBillsByMonthAndYear(month, year);
-        } else if (year != null) {
-            // Filter by year only
-            bills = billService.getBillsByYear(year);
-        } else {
-            // No filter - get all bills
-            bills = billService.getAllBills();
+            @RequestParam(value = "page", defaultValue = "0") int page,
+            @RequestParam(value = "size", defaultValue = "50") int size,
+            ServletWebRequest webRequest, Model model) {
+        if (isNotModified(pageVersionService.getBillsVersion(), webRequest)) {
+            return null;
         }
 
-        model.addAttribute("bills", bills);
+        Page<Bill> billPage = billService.getBillsPage(month, year, tenantId, page, size);
+
+        model.addAttribute("billPage", billPage);
+        model.addAttribute("bills", billPage.getContent());
         model.addAttribute("selectedMonth", month);
         model.addAttribute("selectedYear", year);
         model.addAttribute("selectedTenantId", tenantId);
 
-        // Fetch and add dynamic prices to the model for hidden snippet rendering
-        double electricityPriceUnit = settingService.getDoubleSettingValue("ELECTRICITY_PRICE").orElse(0.0);
-        double waterPriceUnit = settingService.getDoubleSettingValue("WATER_PRICE").orElse(0.0);
-        model.addAttribute("electricityPriceUnit", electricityPriceUnit);
-        model.addAttribute("waterPriceUnit", waterPriceUnit);
-
-        // Get unique years from all bills for year dropdown
-        List<Bill> allBills = billService.getAllBills();
-        java.util.Set<Integer> yearsSet = new java.util.TreeSet<>(java.util.Collections.reverseOrder());
-        for (Bill b : allBills) {
-            yearsSet.add(b.getBillYear());
-        }
-        model.addAttribute("years", new java.util.ArrayList<>(yearsSet));
+        // Get the years that have bills for the year dropdown
+        model.addAttribute("years", billService.getBillYears());
 
         // Get all tenants for dropdown
         model.addAttribute("tenants", tenantService.getAllTenants());
@@ -104,15 +84,21 @@ public class BillController {
     }
 
     @GetMapping("/tenant/{tenantId}")
-    public String listBillsByTenant(@PathVariable("tenantId") Long tenantId, Model model,
-            RedirectAttributes redirectAttributes) {
+    public String listBillsByTenant(@PathVariable("tenantId") Long tenantId,
+            @RequestParam(name = "before", required = false) YearMonth before,
+            @RequestParam(name = "size", defaultValue = "24") int size,
+            Model model, RedirectAttributes redirectAttributes) {
         Optional<Tenant> tenantOptional = tenantService.getTenantById(tenantId);
         if (tenantOptional.isEmpty()) {
             redirectAttributes.addFlashAttribute("errorMessage", "Tenant not found."); // Consider using message key
             return "redirect:/tenants";
         }
         model.addAttribute("tenant", tenantOptional.get());
-        model.addAttribute("bills", tenantOptional.get().getBills());
+        BillHistoryDTO history = billService.getBillHistory(tenantId, before, size);
+        model.addAttribute("bills", history.getBills());
+        model.addAttribute("nextBefore", history.getNextBefore());
+        model.addAttribute("before", before);
+        model.addAttribute("size", size);
         return "bills/list-by-tenant";
     }
 
@@ -132,10 +118,9 @@ public class BillController {
         bill.setTenant(tenant);
 
         // Initialize default fees from global settings
-        double defaultTrashFee = settingService.getDoubleSettingValue(SettingServiceImpl.TRASH_FEE_KEY).orElse(20000.0);
-        double defaultWifiFee = settingService.getDoubleSettingValue(SettingServiceImpl.WIFI_FEE_KEY).orElse(50000.0);
-        bill.setTrashFee(defaultTrashFee);
-        bill.setWifiFee(defaultWifiFee);
+        PricingSnapshot pricing = settingService.getPricing();
+        bill.setTrashFee(pricing.getTrashFee());
+        bill.setWifiFee(pricing.getWifiFee());
 
         LocalDate today = LocalDate.now();
         bill.setBillMonth(today.getMonthValue());
@@ -296,6 +281,12 @@ public class BillController {
             String successMsg = messageSource.getMessage(successMsgKey, null, LocaleContextHolder.getLocale());
             redirectAttributes.addFlashAttribute("successMessage", successMsg);
             return "redirect:/bills/tenant/" + bill.getTenant().getId();
+        } catch (OptimisticLockingFailureException e) {
+            // Reopen the form with the other user's values instead of the stale ones
+            String errorMsg = messageSource.getMessage("error.bill.conflict", new Object[] { bill.getId() },
+                    LocaleContextHolder.getLocale());
+            redirectAttributes.addFlashAttribute("errorMessage", errorMsg);
+            return "redirect:/bills/edit/" + bill.getId();
         } catch (IllegalArgumentException | IllegalStateException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
             // Repopulate tenantName for the form
@@ -347,15 +338,29 @@ public class BillController {
 
     @PostMapping("/bulk-update-status")
     public String bulkUpdateStatus(@RequestParam("billIds") List<Long> billIds,
+            @RequestParam("billVersions") List<Long> billVersions,
             @RequestParam("isPaid") boolean isPaid,
             RedirectAttributes redirectAttributes) {
         if (billIds != null && !billIds.isEmpty()) {
             try {
-                billService.bulkUpdateStatus(billIds, isPaid);
+                if (billVersions.size() != billIds.size()) {
+                    throw new IllegalArgumentException("Each selected bill needs the version it was shown at");
+                }
+                // The versions are sent in the order of the selected bills
+                Map<Long, Long> versionsById = new LinkedHashMap<>();
+                for (int i = 0; i < billIds.size(); i++) {
+                    versionsById.put(billIds.get(i), billVersions.get(i));
+                }
+                int updated = billService.bulkUpdateStatus(versionsById, isPaid);
                 String msgKey = isPaid ? "success.bill.bulk.paid" : "success.bill.bulk.unpaid";
-                String successMsg = messageSource.getMessage(msgKey, new Object[] { billIds.size() },
+                String successMsg = messageSource.getMessage(msgKey, new Object[] { updated },
                         LocaleContextHolder.getLocale());
                 redirectAttributes.addFlashAttribute("successMessage", successMsg);
+                if (updated < versionsById.size()) {
+                    String conflictMsg = messageSource.getMessage("error.bill.bulk.conflict",
+                            new Object[] { versionsById.size() - updated }, LocaleContextHolder.getLocale());
+                    redirectAttributes.addFlashAttribute("errorMessage", conflictMsg);
+                }
             } catch (Exception e) {
                 redirectAttributes.addFlashAttribute("errorMessage", "Error updating bills: " + e.getMessage());
             }
@@ -368,9 +373,9 @@ public class BillController {
             RedirectAttributes redirectAttributes) {
         if (billIds != null && !billIds.isEmpty()) {
             try {
-                billService.bulkDelete(billIds);
+                int deleted = billService.bulkDelete(billIds);
                 String successMsg = messageSource.getMessage("success.bill.bulk.deleted",
-                        new Object[] { billIds.size() }, LocaleContextHolder.getLocale());
+                        new Object[] { deleted }, LocaleContextHolder.getLocale());
                 redirectAttributes.addFlashAttribute("successMessage", successMsg);
             } catch (Exception e) {
                 redirectAttributes.addFlashAttribute("errorMessage", "Error deleting bills: " + e.getMessage());
@@ -380,8 +385,13 @@ public class BillController {
     }
 
     @GetMapping("/{id}")
+    public String viewBill(@PathVariable("id") Long id, ServletWebRequest webRequest, Model model,
+            RedirectAttributes redirectAttributes) {
+        Optional<PageVersionDTO> version = pageVersionService.getBillVersion(id);
+        if (version.isPresent() && isNotModified(version.get(), webRequest)) {
+            return null;
+        }
 
-    public String viewBill(@PathVariable("id") Long id, Model model, RedirectAttributes redirectAttributes) {
         Optional<Bill> billOptional = billService.getBillById(id);
         if (billOptional.isEmpty()) {
             String errorMsg = messageSource.getMessage("error.bill.notfound", null, LocaleContextHolder.getLocale());
@@ -392,12 +402,9 @@ public class BillController {
         model.addAttribute("bill", bill);
 
         // Fetch and add dynamic prices to the model
-        double electricityPriceUnit = settingService.getDoubleSettingValue("ELECTRICITY_PRICE").orElse(0.0); // Default
-                                                                                                             // if not
-                                                                                                             // set
-        double waterPriceUnit = settingService.getDoubleSettingValue("WATER_PRICE").orElse(0.0); // Default if not set
-        model.addAttribute("electricityPriceUnit", electricityPriceUnit);
-        model.addAttribute("waterPriceUnit", waterPriceUnit);
+        PricingSnapshot pricing = settingService.getPricing();
+        model.addAttribute("electricityPriceUnit", pricing.getElectricityPrice());
+        model.addAttribute("waterPriceUnit", pricing.getWaterPrice());
 
         model.addAttribute("pageTitle",
                 messageSource.getMessage("bill.details.title",
@@ -411,13 +418,20 @@ public class BillController {
             @RequestParam(value = "month", required = false) Integer month,
             @RequestParam(value = "year", required = false) Integer year,
             @RequestParam(value = "tenantId", required = false) Long tenantId,
-            Model model) {
+            ServletWebRequest webRequest, Model model) {
 
         // Default to current year if no year specified
         if (year == null) {
             year = java.time.LocalDate.now().getYear();
         }
 
+        // The year list below moves with the current year
+        PageVersionDTO version = pageVersionService.getBillsVersion();
+        version.setTag(version.getTag() + "-y" + java.time.LocalDate.now().getYear() + "." + year);
+        if (isNotModified(version, webRequest)) {
+            return null;
+        }
+
         com.example.nhatromanagement.dto.BillStatisticsDTO statistics = billService.getStatistics(month, year,
                 tenantId);
         model.addAttribute("statistics", statistics);
@@ -445,4 +459,35 @@ public class BillController {
                 messageSource.getMessage("statistics.title", null, LocaleContextHolder.getLocale()));
         return "bills/statistics";
     }
+
+    /**
+     * Answers a conditional GET from the page version alone, before anything is
+     * loaded for the page. The ETag also covers what differs between viewers of
+     * the same data: the language, the signed-in user and their session, whose
+     * CSRF token the page's forms carry.
+     *
+     * @return true when the browser's copy is current and a 304 was sent
+     */
+    private boolean isNotModified(PageVersionDTO version, ServletWebRequest webRequest) {
+        HttpServletRequest request = webRequest.getRequest();
+        // A page showing a flash message differs from the one the browser has
+        if (RequestContextUtils.getInputFlashMap(request) != null) {
+            return false;
+        }
+
+        String viewer = LocaleContextHolder.getLocale().toLanguageTag();
+        Principal principal = request.getUserPrincipal();
+        if (principal != null) {
+            HttpSession session = request.getSession(false);
+            viewer += "|" + principal.getName() + "|" + (session != null ? session.getId() : "");
+        }
+        String etag = "\"" + version.getTag() + "-v" + Integer.toHexString(viewer.hashCode()) + "\"";
+        long lastModified = version.getLastModified() != null ? version.getLastModified().toEpochMilli() : -1;
+
+        // Let browsers keep the page but ask every time whether it is still current
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        }
+        return webRequest.checkNotModified(etag, lastModified);
+    }
 }
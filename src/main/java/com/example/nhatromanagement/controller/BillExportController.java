@@ -0,0 +1,85 @@
+package com.example.nhatromanagement.controller;
+
+import com.example.nhatromanagement.service.BillExportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.Locale;
+
+@Controller
+@RequestMapping("/bills/export")
+public class BillExportController {
+
+    private static final MediaType APPLICATION_ZIP = MediaType.parseMediaType("application/zip");
+    private static final MediaType TEXT_CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+
+    private final BillExportService billExportService;
+
+    @Autowired
+    public BillExportController(BillExportService billExportService) {
+        this.billExportService = billExportService;
+    }
+
+    /**
+     * Download the PDFs of every bill matching the bills list filters as one ZIP.
+     */
+    @GetMapping("/zip")
+    public ResponseEntity<StreamingResponseBody> downloadFilteredBills(
+            @RequestParam(value = "month", required = false) Integer month,
+            @RequestParam(value = "year", required = false) Integer year,
+            @RequestParam(value = "tenantId", required = false) Long tenantId) {
+        String fileName = "TatCaHoaDon_Thang" + (year != null && month != null ? month : "All")
+                + "_Nam" + (year != null ? year : "All") + ".zip";
+        // Rendering happens off the request thread, so capture the locale now
+        Locale locale = LocaleContextHolder.getLocale();
+        return zipResponse(out -> billExportService.writePdfArchive(month, year, tenantId, locale, out), fileName);
+    }
+
+    /**
+     * Download every bill matching the bills list filters as one CSV file. Rows
+     * are written as they are read from the database.
+     */
+    @GetMapping("/csv")
+    public ResponseEntity<StreamingResponseBody> downloadFilteredBillsCsv(
+            @RequestParam(value = "month", required = false) Integer month,
+            @RequestParam(value = "year", required = false) Integer year,
+            @RequestParam(value = "tenantId", required = false) Long tenantId) {
+        String fileName = "HoaDon_Thang" + (year != null && month != null ? month : "All")
+                + "_Nam" + (year != null ? year : "All") + ".csv";
+        StreamingResponseBody body = out -> billExportService.writeCsv(month, year, tenantId, out);
+        return ResponseEntity.ok()
+                .contentType(TEXT_CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+
+    /**
+     * Download the PDFs of the selected bills as one ZIP.
+     */
+    @PostMapping("/zip")
+    public ResponseEntity<StreamingResponseBody> downloadSelectedBills(
+            @RequestParam("billIds") List<Long> billIds) {
+        Locale locale = LocaleContextHolder.getLocale();
+        return zipResponse(out -> billExportService.writePdfArchive(billIds, locale, out), "HoaDon.zip");
+    }
+
+    private ResponseEntity<StreamingResponseBody> zipResponse(StreamingResponseBody body, String fileName) {
+        return ResponseEntity.ok()
+                .contentType(APPLICATION_ZIP)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
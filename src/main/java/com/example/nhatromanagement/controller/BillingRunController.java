@@ -0,0 +1,60 @@
+package com.example.nhatromanagement.controller;
+
+import com.example.nhatromanagement.dto.BillingRunDTO;
+import com.example.nhatromanagement.service.BillingRunService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.time.DateTimeException;
+import java.time.YearMonth;
+
+@Controller
+@RequestMapping("/billing-runs")
+public class BillingRunController {
+
+    private final BillingRunService billingRunService;
+
+    @Autowired
+    public BillingRunController(BillingRunService billingRunService) {
+        this.billingRunService = billingRunService;
+    }
+
+    /**
+     * Start creating draft bills for every room without a bill for the month.
+     * Answers at once with the run's progress, poll /billing-runs/latest for the
+     * rest.
+     */
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<BillingRunDTO> startRun(@RequestParam("year") int year,
+            @RequestParam("month") int month) {
+        YearMonth period;
+        try {
+            period = YearMonth.of(year, month);
+        } catch (DateTimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(billingRunService.startRun(period));
+        } catch (IllegalStateException e) {
+            // Another run is in progress, show it instead
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(billingRunService.getLatestRun().orElse(null));
+        }
+    }
+
+    /**
+     * Progress and failures of the latest run
+     */
+    @GetMapping("/latest")
+    @ResponseBody
+    public ResponseEntity<BillingRunDTO> latestRun() {
+        return ResponseEntity.of(billingRunService.getLatestRun());
+    }
+}
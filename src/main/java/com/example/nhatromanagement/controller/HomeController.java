@@ -1,90 +1,104 @@
 package com.example.nhatromanagement.controller;
 
+import com.example.nhatromanagement.config.ExecutorConfig;
+import com.example.nhatromanagement.dto.DashboardSummaryDTO;
 import com.example.nhatromanagement.dto.MonthlyStatDTO;
 import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.service.BillRollupService;
 import com.example.nhatromanagement.service.BillService;
 import com.example.nhatromanagement.service.TenantService;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
-import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+@Slf4j
 @Controller
 public class HomeController {
 
     private final BillService billService;
     private final TenantService tenantService;
+    private final BillRollupService billRollupService;
+    private final TaskExecutor dashboardExecutor;
+    private final long queryTimeoutMillis;
 
     @Autowired
-    public HomeController(BillService billService, TenantService tenantService) {
+    public HomeController(BillService billService, TenantService tenantService,
+            BillRollupService billRollupService,
+            @Qualifier(ExecutorConfig.DASHBOARD_EXECUTOR) TaskExecutor dashboardExecutor,
+            @Value("${app.dashboard.query-timeout-ms:2000}") long queryTimeoutMillis) {
         this.billService = billService;
         this.tenantService = tenantService;
+        this.billRollupService = billRollupService;
+        this.dashboardExecutor = dashboardExecutor;
+        this.queryTimeoutMillis = queryTimeoutMillis;
     }
 
     @GetMapping("/")
     public String home(Model model) {
-        // Get current year
-        int currentYear = LocalDate.now().getYear();
-        int currentMonth = LocalDate.now().getMonthValue();
-
-        // Get all bills
-        List<Bill> allBills = billService.getAllBills();
-
-        // Summary stats
-        long totalRooms = tenantService.getAllTenants().size();
-        long totalBills = allBills.size();
-        double totalRevenue = allBills.stream().mapToDouble(Bill::getTotalAmount).sum();
-        long unpaidBills = allBills.stream().filter(b -> b.getPaid() == null || !b.getPaid()).count();
-
-        model.addAttribute("totalRooms", totalRooms);
-        model.addAttribute("totalBills", totalBills);
-        model.addAttribute("totalRevenue", totalRevenue);
-        model.addAttribute("unpaidBills", unpaidBills);
+        YearMonth currentPeriod = YearMonth.now();
 
+        // The panels are independent, so their queries run at the same time and the
+        // page waits for the slowest one only
+        CompletableFuture<Long> totalRooms = panel("room count", tenantService::countTenants);
+        // Summary stats, read from the monthly rollup table instead of the bills
+        CompletableFuture<DashboardSummaryDTO> summary = panel("summary", billRollupService::getSummary);
         // Monthly stats for last 6 months (for charts)
-        List<MonthlyStatDTO> monthlyStats = new ArrayList<>();
-        for (int i = 5; i >= 0; i--) {
-            LocalDate date = LocalDate.now().minusMonths(i);
-            int month = date.getMonthValue();
-            int year = date.getYear();
-
-            List<Bill> monthBills = allBills.stream()
-                    .filter(b -> b.getBillMonth() == month && b.getBillYear() == year)
-                    .collect(Collectors.toList());
-
-            double roomRent = monthBills.stream().mapToDouble(Bill::getRoomRent).sum();
-            double electricityCost = monthBills.stream().mapToDouble(Bill::getElectricityCost).sum();
-            double waterCost = monthBills.stream().mapToDouble(Bill::getWaterCost).sum();
-            double totalAmount = monthBills.stream().mapToDouble(Bill::getTotalAmount).sum();
-
-            monthlyStats.add(new MonthlyStatDTO(month, year, roomRent, electricityCost, waterCost, totalAmount,
-                    monthBills.size()));
-        }
-        model.addAttribute("monthlyStats", monthlyStats);
-
+        CompletableFuture<List<MonthlyStatDTO>> monthlyStats = panel("monthly stats",
+                () -> billRollupService.getMonthlyStats(currentPeriod.minusMonths(5), currentPeriod));
         // Current month breakdown for pie chart
-        var currentMonthStats = billService.getStatistics(currentMonth, currentYear);
-        model.addAttribute("currentMonthStats", currentMonthStats);
-
+        CompletableFuture<?> currentMonthStats = panel("current month stats",
+                () -> billRollupService.getStatistics(currentPeriod.getMonthValue(), currentPeriod.getYear()));
         // Recent bills (last 5)
-        List<Bill> recentBills = allBills.stream()
-                .sorted((a, b) -> {
-                    int yearCompare = Integer.compare(b.getBillYear(), a.getBillYear());
-                    if (yearCompare != 0)
-                        return yearCompare;
-                    int monthCompare = Integer.compare(b.getBillMonth(), a.getBillMonth());
-                    if (monthCompare != 0)
-                        return monthCompare;
-                    return Long.compare(b.getId(), a.getId());
-                })
-                .limit(5)
-                .collect(Collectors.toList());
-        model.addAttribute("recentBills", recentBills);
+        CompletableFuture<List<Bill>> recentBills = panel("recent bills", billService::getRecentBills);
+
+        model.addAttribute("totalRooms", totalRooms.join());
+        DashboardSummaryDTO summaryValue = summary.join();
+        model.addAttribute("totalBills", summaryValue != null ? summaryValue.getBillCount() : null);
+        model.addAttribute("totalRevenue", summaryValue != null ? summaryValue.getTotalAmount() : null);
+        model.addAttribute("unpaidBills", summaryValue != null ? summaryValue.getUnpaidCount() : null);
+        model.addAttribute("monthlyStats", monthlyStats.join());
+        model.addAttribute("currentMonthStats", currentMonthStats.join());
+        model.addAttribute("recentBills", recentBills.join());
+
+        boolean incomplete = Stream.of(totalRooms, summary, monthlyStats, currentMonthStats, recentBills)
+                .anyMatch(panel -> panel.join() == null);
+        model.addAttribute("dashboardIncomplete", incomplete);
 
         return "index";
     }
+
+    /**
+     * Runs the query of one dashboard panel on the dashboard pool, in the
+     * transaction of the service it calls. A query that fails, cannot be queued or
+     * takes longer than app.dashboard.query-timeout-ms completes with null and its
+     * panel is skipped; a timed out query still finishes in the background.
+     */
+    private <T> CompletableFuture<T> panel(String name, Supplier<T> query) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(query, dashboardExecutor)
+                    .orTimeout(queryTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Pool and queue full
+            future = CompletableFuture.failedFuture(e);
+        }
+        return future.exceptionally(e -> {
+            Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+            log.warn("Dashboard panel '{}' skipped: {}", name, cause.toString());
+            return null;
+        });
+    }
 }
@@ -1,9 +1,12 @@
 package com.example.nhatromanagement.controller;
 
+import com.example.nhatromanagement.dto.BillImportResultDTO;
+import com.example.nhatromanagement.dto.BulkBillResultDTO;
 import com.example.nhatromanagement.dto.BulkMeterReadingDTO;
 import com.example.nhatromanagement.dto.MeterReadingDTO;
 import com.example.nhatromanagement.model.Bill;
 import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.service.BillImportService;
 import com.example.nhatromanagement.service.BillService;
 import com.example.nhatromanagement.service.TenantService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -12,12 +15,15 @@ import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.time.LocalDate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/quick-entry")
@@ -25,13 +31,15 @@ public class QuickEntryController {
 
     private final TenantService tenantService;
     private final BillService billService;
+    private final BillImportService billImportService;
     private final MessageSource messageSource;
 
     @Autowired
     public QuickEntryController(TenantService tenantService, BillService billService,
-            MessageSource messageSource) {
+            BillImportService billImportService, MessageSource messageSource) {
         this.tenantService = tenantService;
         this.billService = billService;
+        this.billImportService = billImportService;
         this.messageSource = messageSource;
     }
 
@@ -41,50 +49,28 @@ public class QuickEntryController {
 
         BulkMeterReadingDTO bulkDTO = new BulkMeterReadingDTO();
 
-        // Find the latest bill month/year in database and default to next month
-        int defaultMonth = LocalDate.now().getMonthValue();
-        int defaultYear = LocalDate.now().getYear();
-
-        // Check if any bills exist in database to auto-increment month
-        List<Bill> allBills = billService.getAllBills();
-        if (!allBills.isEmpty()) {
-            // Find the latest bill by year and month
-            Bill latestBill = allBills.stream()
-                    .max((a, b) -> {
-                        int yearCompare = Integer.compare(a.getBillYear(), b.getBillYear());
-                        if (yearCompare != 0)
-                            return yearCompare;
-                        return Integer.compare(a.getBillMonth(), b.getBillMonth());
-                    })
-                    .orElse(null);
-
-            if (latestBill != null) {
-                // Set to next month after the latest bill
-                defaultMonth = latestBill.getBillMonth() + 1;
-                defaultYear = latestBill.getBillYear();
-
-                // Handle year rollover (December -> January)
-                if (defaultMonth > 12) {
-                    defaultMonth = 1;
-                    defaultYear++;
-                }
-            }
-        }
+        // Default to the month after the latest billing period in database, or the
+        // current month when there are no bills yet
+        YearMonth defaultPeriod = billService.getLatestBillingPeriod()
+                .map(latestPeriod -> latestPeriod.plusMonths(1))
+                .orElseGet(YearMonth::now);
 
-        bulkDTO.setBillMonth(defaultMonth);
-        bulkDTO.setBillYear(defaultYear);
+        bulkDTO.setBillMonth(defaultPeriod.getMonthValue());
+        bulkDTO.setBillYear(defaultPeriod.getYear());
 
         List<MeterReadingDTO> readings = new ArrayList<>();
 
+        // Latest bill of every room, loaded in one query
+        Map<Long, Bill> latestBills = billService.getLatestBillsByTenant();
+
         for (Tenant tenant : tenants) {
             MeterReadingDTO dto = new MeterReadingDTO();
             dto.setTenantId(tenant.getId());
             dto.setTenantName(tenant.getName());
 
             // Get latest bill for previous readings and prefilled fees
-            Optional<Bill> latestBill = billService.getLatestBillForTenant(tenant.getId());
-            if (latestBill.isPresent()) {
-                Bill lb = latestBill.get();
+            Bill lb = latestBills.get(tenant.getId());
+            if (lb != null) {
                 dto.setElectricityPrevious(lb.getElectricityKwhCurrent());
                 dto.setWaterPrevious(lb.getWaterM3Current());
                 dto.setRoomRent(lb.getRoomRent());
@@ -114,39 +100,20 @@ public class QuickEntryController {
 
     @PostMapping("/save")
     public String saveBulkBills(@ModelAttribute BulkMeterReadingDTO bulkDTO, RedirectAttributes redirectAttributes) {
-        int successCount = 0;
-        int errorCount = 0;
-        List<String> errors = new ArrayList<>();
-
-        for (MeterReadingDTO reading : bulkDTO.getReadings()) {
-            if (!reading.isSelected()) {
-                continue; // Skip unselected rooms
-            }
-
-            if (reading.getElectricityCurrent() == null || reading.getWaterCurrent() == null) {
-                continue; // Skip if no readings entered
-            }
-
-            try {
-                billService.createBill(
-                        reading.getTenantId(),
-                        bulkDTO.getBillYear(),
-                        bulkDTO.getBillMonth(),
-                        reading.getElectricityCurrent(),
-                        reading.getWaterCurrent(),
-                        reading.getTrashFee(),
-                        reading.getWifiFee(),
-                        reading.getRoomRent(),
-                        reading.getOccupantName());
-                successCount++;
-            } catch (IllegalStateException e) {
-                // Bill already exists for this month
-                errors.add(reading.getTenantName() + ": " + e.getMessage());
-                errorCount++;
-            } catch (Exception e) {
-                errors.add(reading.getTenantName() + ": " + e.getMessage());
-                errorCount++;
-            }
+        int successCount;
+        int errorCount;
+        List<String> errors;
+
+        try {
+            BulkBillResultDTO result = billService.createBills(bulkDTO);
+            successCount = result.getSuccessCount();
+            errorCount = result.getErrorCount();
+            errors = result.getErrors();
+        } catch (Exception e) {
+            // The batch is saved in one transaction, nothing was created
+            successCount = 0;
+            errorCount = 1;
+            errors = List.of(e.getMessage());
         }
 
         if (successCount > 0) {
@@ -163,4 +130,35 @@ public class QuickEntryController {
 
         return "redirect:/bills";
     }
+
+    @GetMapping("/import")
+    public String showImportForm() {
+        return "bills/import";
+    }
+
+    /**
+     * Import a CSV of meter readings and show the per-line error report
+     */
+    @PostMapping("/import")
+    public String importReadings(@RequestParam("file") MultipartFile file, Model model) {
+        if (file.isEmpty()) {
+            model.addAttribute("errorMessage",
+                    messageSource.getMessage("import.error.empty", null, LocaleContextHolder.getLocale()));
+            return "bills/import";
+        }
+        // Read straight from the upload, the file is never held in memory
+        try (InputStream in = file.getInputStream()) {
+            BillImportResultDTO result = billImportService.importCsv(in);
+            model.addAttribute("importResult", result);
+            if (result.getImportedCount() > 0) {
+                model.addAttribute("successMessage", messageSource.getMessage("import.success",
+                        new Object[] { result.getImportedCount(), result.getLineCount() },
+                        LocaleContextHolder.getLocale()));
+            }
+        } catch (IOException e) {
+            model.addAttribute("errorMessage", messageSource.getMessage("import.error.read",
+                    new Object[] { e.getMessage() }, LocaleContextHolder.getLocale()));
+        }
+        return "bills/import";
+    }
 }
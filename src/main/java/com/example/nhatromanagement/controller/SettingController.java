@@ -1,6 +1,7 @@
 package com.example.nhatromanagement.controller;
 
 import com.example.nhatromanagement.model.Setting;
+import com.example.nhatromanagement.service.BillRollupService;
 import com.example.nhatromanagement.service.SettingService;
 import com.example.nhatromanagement.service.impl.SettingServiceImpl;
 import lombok.extern.slf4j.Slf4j;
@@ -26,11 +27,14 @@ public class SettingController {
 
     private final SettingService settingService;
     private final MessageSource messageSource;
+    private final BillRollupService billRollupService;
 
     @Autowired
-    public SettingController(SettingService settingService, MessageSource messageSource) {
+    public SettingController(SettingService settingService, MessageSource messageSource,
+            BillRollupService billRollupService) {
         this.settingService = settingService;
         this.messageSource = messageSource;
+        this.billRollupService = billRollupService;
     }
 
     @GetMapping
@@ -92,4 +96,18 @@ public class SettingController {
         }
         return "redirect:/settings";
     }
+
+    @PostMapping("/rollup/rebuild")
+    public String rebuildRollup(RedirectAttributes redirectAttributes) {
+        try {
+            int periods = billRollupService.rebuild();
+            redirectAttributes.addFlashAttribute("successMessage", messageSource.getMessage(
+                    "settings.rollup.rebuild.success", new Object[] { periods }, LocaleContextHolder.getLocale()));
+        } catch (Exception e) {
+            log.error("Error rebuilding monthly bill rollup", e);
+            redirectAttributes.addFlashAttribute("errorMessage",
+                    messageSource.getMessage("settings.rollup.rebuild.error", null, LocaleContextHolder.getLocale()));
+        }
+        return "redirect:/settings";
+    }
 }
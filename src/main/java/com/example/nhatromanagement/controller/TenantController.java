@@ -1,8 +1,11 @@
 package com.example.nhatromanagement.controller;
 
+import com.example.nhatromanagement.dto.TenantDeletionResultDTO;
 import com.example.nhatromanagement.model.Tenant;
 import com.example.nhatromanagement.service.TenantService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.MessageSource;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -16,10 +19,12 @@ import java.util.Optional;
 public class TenantController {
 
     private final TenantService tenantService;
+    private final MessageSource messageSource;
 
     @Autowired
-    public TenantController(TenantService tenantService) {
+    public TenantController(TenantService tenantService, MessageSource messageSource) {
         this.tenantService = tenantService;
+        this.messageSource = messageSource;
     }
 
     @GetMapping
@@ -71,10 +76,14 @@ public class TenantController {
     // POST for update is handled by /save as well, since tenant object will have an ID.
 
     @GetMapping("/delete/{id}")
-    public String deleteTenant(@PathVariable("id") Long id, RedirectAttributes redirectAttributes) {
+    public String deleteTenant(@PathVariable("id") Long id,
+            @RequestParam(name = "archive", defaultValue = "true") boolean archive,
+            RedirectAttributes redirectAttributes) {
         try {
-            tenantService.deleteTenant(id);
-            redirectAttributes.addFlashAttribute("successMessage", "Tenant deleted successfully!");
+            TenantDeletionResultDTO result = tenantService.deleteTenant(id, archive);
+            redirectAttributes.addFlashAttribute("successMessage", messageSource.getMessage("success.tenant.deleted.bills",
+                    new Object[] { result.getDeletedBillCount(), result.getArchivedBillCount() },
+                    LocaleContextHolder.getLocale()));
         } catch (IllegalArgumentException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
         } catch (Exception e) {
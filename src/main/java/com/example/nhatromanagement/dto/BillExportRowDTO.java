@@ -0,0 +1,37 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the bills CSV export, read straight from the query so no Bill
+ * entity is kept in the persistence context. Readings are in tenths of a unit
+ * and amounts in whole VND, like on Bill.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillExportRowDTO {
+
+    private Long id;
+    private String tenantName;
+    private int billYear;
+    private int billMonth;
+    private String occupantName;
+
+    private long electricityKwhPreviousTenths;
+    private long electricityKwhCurrentTenths;
+    private long waterM3PreviousTenths;
+    private long waterM3CurrentTenths;
+
+    private long roomRent;
+    private long electricityCost;
+    private long waterCost;
+    private long trashFee;
+    private long wifiFee;
+    private long totalAmount;
+
+    private Boolean paid;
+    private Boolean draft;
+}
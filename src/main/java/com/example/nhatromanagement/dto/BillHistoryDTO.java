@@ -0,0 +1,23 @@
+package com.example.nhatromanagement.dto;
+
+import com.example.nhatromanagement.model.Bill;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * One page of a room's bill history, newest billing period first
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillHistoryDTO {
+
+    private List<Bill> bills;
+
+    // Period to continue from for the next (older) page, null on the last page
+    private YearMonth nextBefore;
+}
@@ -0,0 +1,29 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a CSV import, one error entry per rejected line
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillImportResultDTO {
+
+    // Data lines read, not counting the header
+    private int lineCount;
+    private int importedCount;
+    private int errorCount;
+
+    // "Line n: reason", only the first few are kept when a whole file is wrong
+    private List<String> errors = new ArrayList<>();
+
+    public boolean isErrorsTruncated() {
+        return errorCount > errors.size();
+    }
+}
@@ -15,19 +15,33 @@ public class BillStatisticsDTO {
     private Integer month;
     private Integer year;
 
-    private double totalRoomRent;
-    private double totalElectricityCost;
-    private double totalWaterCost;
-    private double totalTrashFee;
-    private double totalWifiFee;
-    private double totalAmount;
+    private long totalRoomRent;
+    private long totalElectricityCost;
+    private long totalWaterCost;
+    private long totalTrashFee;
+    private long totalWifiFee;
+    private long totalAmount;
 
     private int billCount;
 
+    /**
+     * Constructor used by the aggregate queries in BillRepository
+     */
+    public BillStatisticsDTO(long billCount, long totalRoomRent, long totalElectricityCost,
+            long totalWaterCost, long totalTrashFee, long totalWifiFee, long totalAmount) {
+        this.billCount = (int) billCount;
+        this.totalRoomRent = totalRoomRent;
+        this.totalElectricityCost = totalElectricityCost;
+        this.totalWaterCost = totalWaterCost;
+        this.totalTrashFee = totalTrashFee;
+        this.totalWifiFee = totalWifiFee;
+        this.totalAmount = totalAmount;
+    }
+
     /**
      * Calculate grand total from all components
      */
-    public double getGrandTotal() {
+    public long getGrandTotal() {
         return totalRoomRent + totalElectricityCost + totalWaterCost + totalTrashFee + totalWifiFee;
     }
 }
@@ -0,0 +1,21 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Versions of a bill and of its tenant, with the last change to the bill's
+ * billing period
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillVersionDTO {
+
+    private long billVersion;
+    private long tenantVersion;
+    private Instant periodUpdatedAt;
+}
@@ -0,0 +1,39 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the progress of a month-close billing run, one error entry per failed
+ * chunk of rooms
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BillingRunDTO {
+
+    public enum Status {
+        RUNNING, COMPLETED, COMPLETED_WITH_ERRORS
+    }
+
+    private int billYear;
+    private int billMonth;
+    private Status status;
+
+    // Rooms without a bill for the period when the run started
+    private int tenantCount;
+    private int chunkCount;
+    private int finishedChunkCount;
+
+    private int createdCount;
+    private int failedCount;
+    private List<String> errors = new ArrayList<>();
+
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,26 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk bill creation, one error entry per failed room
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkBillResultDTO {
+
+    private int successCount;
+
+    // "Room name: reason" for every room whose bill was not created
+    private List<String> errors = new ArrayList<>();
+
+    public int getErrorCount() {
+        return errors.size();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Summary of the change counters of a table. Any insert, update or delete
+ * changes at least one of the values, so together they identify the state of
+ * the table.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChangeMarkerDTO {
+
+    private long changeCount;   // Sum of the rows' change counters or versions
+    private long lastId;        // Largest row id, ids are never reused
+    private long rowCount;
+    private Instant lastModified;
+
+    /**
+     * Constructor used by queries on tables without a modification time
+     */
+    public ChangeMarkerDTO(long changeCount, long lastId, long rowCount) {
+        this(changeCount, lastId, rowCount, null);
+    }
+
+    public String toTag() {
+        return changeCount + "." + lastId + "." + rowCount;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the all-time totals shown on the dashboard summary cards
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardSummaryDTO {
+
+    private long billCount;
+    private long totalAmount;
+    private long unpaidCount;
+    private long unpaidAmount;
+}
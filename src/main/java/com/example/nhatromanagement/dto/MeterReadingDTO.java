@@ -24,9 +24,9 @@ public class MeterReadingDTO {
     private Double waterCurrent;
 
     // Pre-filled fees from last bill
-    private double roomRent;
-    private double trashFee;
-    private double wifiFee;
+    private long roomRent;
+    private long trashFee;
+    private long wifiFee;
 
     // Occupant name
     private String occupantName;
@@ -14,10 +14,10 @@ public class MonthlyStatDTO {
 
     private int month;
     private int year;
-    private double totalRoomRent;
-    private double totalElectricityCost;
-    private double totalWaterCost;
-    private double totalAmount;
+    private long totalRoomRent;
+    private long totalElectricityCost;
+    private long totalWaterCost;
+    private long totalAmount;
     private int billCount;
 
     public String getMonthLabel() {
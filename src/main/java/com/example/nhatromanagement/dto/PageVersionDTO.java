@@ -0,0 +1,20 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Identifies the data a page is rendered from, used to answer conditional GETs
+ * without rendering the page
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageVersionDTO {
+
+    private String tag;
+    private Instant lastModified; // Null when unknown
+}
@@ -0,0 +1,15 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.Value;
+
+/**
+ * Immutable, pre-parsed copy of the pricing settings used when calculating and
+ * rendering bills.
+ */
+@Value
+public class PricingSnapshot {
+    long electricityPrice; // VND per kWh
+    long waterPrice;       // VND per m3
+    long trashFee;         // VND
+    long wifiFee;          // VND
+}
@@ -0,0 +1,17 @@
+package com.example.nhatromanagement.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Rows removed when a room is deleted together with its bills
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TenantDeletionResultDTO {
+
+    private int deletedBillCount;
+    private int archivedBillCount;
+}
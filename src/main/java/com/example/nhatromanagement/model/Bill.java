@@ -1,6 +1,10 @@
 package com.example.nhatromanagement.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -8,15 +12,31 @@ import lombok.AllArgsConstructor;
 import java.time.YearMonth;
 
 @Entity
+@Table(name = "bill", uniqueConstraints = @UniqueConstraint(name = Bill.UNIQUE_PERIOD_CONSTRAINT, columnNames = {
+        "tenant_id", "bill_year", "bill_month" }))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Bill {
 
+    /** One bill per tenant per month, also the index behind the per-tenant lookups */
+    public static final String UNIQUE_PERIOD_CONSTRAINT = "uk_bill_tenant_period";
+
+    /** Meter readings are stored as whole tenths of a kWh or m3 */
+    public static final int METER_SCALE = 10;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bill_seq")
+    @GenericGenerator(name = "bill_seq", type = PooledSequenceGenerator.class,
+            parameters = @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "bill_seq"))
     private Long id;
 
+    // Incremented on every change, bulk updates bump it explicitly
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tenant_id", nullable = false)
     private Tenant tenant;
@@ -27,43 +47,117 @@ public class Bill {
     @Column(nullable = false)
     private int billYear;  // e.g., 2025
 
-    private double electricityKwhPrevious; // số điện tháng trước
-    private double electricityKwhCurrent;  // số điện tháng này
+    // Readings are kept in tenths of a kWh or m3 (see METER_SCALE), the unit
+    // accessors further down are what forms and templates use
+    @Column(name = "electricity_kwh_previous")
+    private long electricityKwhPreviousTenths; // số điện tháng trước
+    @Column(name = "electricity_kwh_current")
+    private long electricityKwhCurrentTenths;  // số điện tháng này
 
-    private double waterM3Previous;        // số nước tháng trước
-    private double waterM3Current;         // số nước tháng này
+    @Column(name = "waterm3previous")
+    private long waterM3PreviousTenths;        // số nước tháng trước
+    @Column(name = "waterm3current")
+    private long waterM3CurrentTenths;         // số nước tháng này
 
-    private double trashFee;               // tiền rác
-    private double wifiFee;                // tiền wifi
-    private double roomRent;               // tiền trọ cơ bản
+    // Amounts in whole VND, which has no minor unit
+    private long trashFee;                 // tiền rác
+    private long wifiFee;                  // tiền wifi
+    private long roomRent;                 // tiền trọ cơ bản
 
-    private double electricityCost;        // Calculated: (electricityKwhCurrent - electricityKwhPrevious) * 3000
-    private double waterCost;              // Calculated: (waterM3Current - waterM3Previous) * 13000
-    private double totalAmount;            // Calculated: roomRent + electricityCost + waterCost + trashFee + wifiFee
+    private long electricityCost;          // Calculated: electricity usage * electricity price
+    private long waterCost;                // Calculated: water usage * water price
+    private long totalAmount;              // Calculated: roomRent + electricityCost + waterCost + trashFee + wifiFee
 
     private String occupantName;           // Tên người thuê tại thời điểm lập hóa đơn
 
     private Boolean paid = false;          // Trạng thái thanh toán
 
+    private Boolean draft = false;         // Hóa đơn nháp do kỳ chốt tháng tạo, chờ nhập chỉ số
+
     // Method to calculate costs, prices are passed from a service
-    public void calculateCosts(double electricityPricePerKwh, double waterPricePerM3) {
-        if (electricityKwhCurrent >= electricityKwhPrevious) {
-            this.electricityCost = (this.electricityKwhCurrent - this.electricityKwhPrevious) * electricityPricePerKwh;
+    public void calculateCosts(long electricityPricePerKwh, long waterPricePerM3) {
+        long electricityUsage = electricityKwhCurrentTenths - electricityKwhPreviousTenths;
+        if (electricityUsage >= 0) {
+            this.electricityCost = costOf(electricityUsage, electricityPricePerKwh);
         } else {
             throw new IllegalStateException(
-                "Chỉ số điện mới (" + electricityKwhCurrent + ") không thể nhỏ hơn chỉ số cũ (" + electricityKwhPrevious + ")"
+                "Chỉ số điện mới (" + getElectricityKwhCurrent() + ") không thể nhỏ hơn chỉ số cũ (" + getElectricityKwhPrevious() + ")"
             );
         }
 
-        if (waterM3Current >= waterM3Previous) {
-            this.waterCost = (this.waterM3Current - this.waterM3Previous) * waterPricePerM3;
+        long waterUsage = waterM3CurrentTenths - waterM3PreviousTenths;
+        if (waterUsage >= 0) {
+            this.waterCost = costOf(waterUsage, waterPricePerM3);
         } else {
             throw new IllegalStateException(
-                "Chỉ số nước mới (" + waterM3Current + ") không thể nhỏ hơn chỉ số cũ (" + waterM3Previous + ")"
+                "Chỉ số nước mới (" + getWaterM3Current() + ") không thể nhỏ hơn chỉ số cũ (" + getWaterM3Previous() + ")"
             );
         }
 
         this.totalAmount = this.roomRent + this.electricityCost + this.waterCost + this.trashFee + this.wifiFee;
     }
 
+    /**
+     * Fills a billing-run draft with a bill entered for the same room and month,
+     * whose costs are already calculated, and makes it a regular bill.
+     */
+    public void completeDraft(Bill entered) {
+        this.electricityKwhPreviousTenths = entered.electricityKwhPreviousTenths;
+        this.electricityKwhCurrentTenths = entered.electricityKwhCurrentTenths;
+        this.waterM3PreviousTenths = entered.waterM3PreviousTenths;
+        this.waterM3CurrentTenths = entered.waterM3CurrentTenths;
+        this.trashFee = entered.trashFee;
+        this.wifiFee = entered.wifiFee;
+        this.roomRent = entered.roomRent;
+        this.electricityCost = entered.electricityCost;
+        this.waterCost = entered.waterCost;
+        this.totalAmount = entered.totalAmount;
+        this.occupantName = entered.occupantName;
+        this.draft = false;
+    }
+
+    // Usage in tenths times the unit price, rounded half up to whole VND
+    private static long costOf(long usageTenths, long unitPrice) {
+        return (usageTenths * unitPrice + METER_SCALE / 2) / METER_SCALE;
+    }
+
+    public static long toTenths(double reading) {
+        return Math.round(reading * METER_SCALE);
+    }
+
+    public static double fromTenths(long tenths) {
+        return (double) tenths / METER_SCALE;
+    }
+
+    public double getElectricityKwhPrevious() {
+        return fromTenths(electricityKwhPreviousTenths);
+    }
+
+    public void setElectricityKwhPrevious(double kwh) {
+        this.electricityKwhPreviousTenths = toTenths(kwh);
+    }
+
+    public double getElectricityKwhCurrent() {
+        return fromTenths(electricityKwhCurrentTenths);
+    }
+
+    public void setElectricityKwhCurrent(double kwh) {
+        this.electricityKwhCurrentTenths = toTenths(kwh);
+    }
+
+    public double getWaterM3Previous() {
+        return fromTenths(waterM3PreviousTenths);
+    }
+
+    public void setWaterM3Previous(double m3) {
+        this.waterM3PreviousTenths = toTenths(m3);
+    }
+
+    public double getWaterM3Current() {
+        return fromTenths(waterM3CurrentTenths);
+    }
+
+    public void setWaterM3Current(double m3) {
+        this.waterM3CurrentTenths = toTenths(m3);
+    }
 }
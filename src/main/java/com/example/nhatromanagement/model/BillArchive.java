@@ -0,0 +1,52 @@
+package com.example.nhatromanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Copy of a bill kept after its room was deleted. Rows are written in bulk by
+ * BillRepository#archiveByTenantId and keep the id of the original bill.
+ */
+@Entity
+@Table(name = "bill_archive")
+@Data
+@NoArgsConstructor
+public class BillArchive {
+
+    @Id
+    private Long id;                       // Id of the deleted bill
+
+    @Column(nullable = false)
+    private Long tenantId;
+
+    private String tenantName;             // Room name when the bill was archived
+
+    @Column(nullable = false)
+    private int billMonth;
+
+    @Column(nullable = false)
+    private int billYear;
+
+    // Same units as Bill: readings in tenths, amounts in whole VND
+    private long electricityKwhPreviousTenths;
+    private long electricityKwhCurrentTenths;
+    private long waterM3PreviousTenths;
+    private long waterM3CurrentTenths;
+
+    private long trashFee;
+    private long wifiFee;
+    private long roomRent;
+    private long electricityCost;
+    private long waterCost;
+    private long totalAmount;
+
+    private String occupantName;
+
+    private Boolean paid;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+}
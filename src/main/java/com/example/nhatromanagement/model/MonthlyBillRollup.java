@@ -0,0 +1,119 @@
+package com.example.nhatromanagement.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+
+import java.time.Instant;
+import java.time.YearMonth;
+
+/**
+ * Pre-aggregated bill totals for one billing period. Rows are kept in sync by
+ * BillRollupService whenever bills of that period change, so the dashboard can
+ * read a handful of rows instead of scanning the bill table.
+ */
+@Entity
+@Table(name = "monthly_bill_rollup", uniqueConstraints = @UniqueConstraint(name = "uk_monthly_bill_rollup_period", columnNames = {
+        "bill_year", "bill_month" }))
+@Data
+@NoArgsConstructor
+public class MonthlyBillRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private int billYear;
+
+    @Column(nullable = false)
+    private int billMonth;
+
+    private long billCount;
+
+    private long totalRoomRent;
+    private long totalElectricityCost;
+    private long totalWaterCost;
+    private long totalTrashFee;
+    private long totalWifiFee;
+    private long totalAmount;
+
+    private long unpaidCount;              // Bills with paid = false or null
+    private long unpaidAmount;             // Sum of totalAmount of those bills
+
+    // Bumped whenever a bill of the period changes, together with the row id it
+    // identifies the state of the period's bills for conditional GETs
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long changeCount;
+    private Instant updatedAt;
+
+    /**
+     * Constructor used by the aggregate queries in BillRepository
+     */
+    public MonthlyBillRollup(int billYear, int billMonth, long billCount, long totalRoomRent,
+            long totalElectricityCost, long totalWaterCost, long totalTrashFee, long totalWifiFee,
+            long totalAmount, long unpaidCount, long unpaidAmount) {
+        this.billYear = billYear;
+        this.billMonth = billMonth;
+        this.billCount = billCount;
+        this.totalRoomRent = totalRoomRent;
+        this.totalElectricityCost = totalElectricityCost;
+        this.totalWaterCost = totalWaterCost;
+        this.totalTrashFee = totalTrashFee;
+        this.totalWifiFee = totalWifiFee;
+        this.totalAmount = totalAmount;
+        this.unpaidCount = unpaidCount;
+        this.unpaidAmount = unpaidAmount;
+    }
+
+    /**
+     * Creates an empty rollup for a billing period without bills.
+     */
+    public static MonthlyBillRollup empty(int billYear, int billMonth) {
+        MonthlyBillRollup rollup = new MonthlyBillRollup();
+        rollup.setBillYear(billYear);
+        rollup.setBillMonth(billMonth);
+        return rollup;
+    }
+
+    /**
+     * Encodes a billing period as a single sortable number,
+     * {@code year * 12 + (month - 1)}, the form used by the period queries.
+     */
+    public static int periodKey(YearMonth period) {
+        return period.getYear() * 12 + period.getMonthValue() - 1;
+    }
+
+    /**
+     * Decodes a number produced by {@link #periodKey(YearMonth)}.
+     */
+    public static YearMonth periodOf(int periodKey) {
+        return YearMonth.of(periodKey / 12, periodKey % 12 + 1);
+    }
+
+    /**
+     * Records that the bills of this period changed.
+     */
+    public void markChanged() {
+        this.changeCount++;
+        this.updatedAt = Instant.now();
+    }
+
+    /**
+     * Copies the aggregated values of another rollup into this row, keeping the
+     * identity of this row.
+     */
+    public void copyTotalsFrom(MonthlyBillRollup other) {
+        this.billCount = other.billCount;
+        this.totalRoomRent = other.totalRoomRent;
+        this.totalElectricityCost = other.totalElectricityCost;
+        this.totalWaterCost = other.totalWaterCost;
+        this.totalTrashFee = other.totalTrashFee;
+        this.totalWifiFee = other.totalWifiFee;
+        this.totalAmount = other.totalAmount;
+        this.unpaidCount = other.unpaidCount;
+        this.unpaidAmount = other.unpaidAmount;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.nhatromanagement.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator whose allocation size comes from configuration instead of
+ * the mapping, so every entity using it hands out ids from the same sized
+ * blocks. Hibernate can then batch inserts, which it cannot do with identity
+ * columns.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    /** Hibernate setting holding the number of ids reserved per sequence call */
+    public static final String ALLOCATION_SIZE_SETTING = "app.id.allocation_size";
+
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry)
+            throws MappingException {
+        int allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        parameters.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
@@ -2,14 +2,21 @@ package com.example.nhatromanagement.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import lombok.NoArgsConstructor;
 
 @Entity
 @Table(name = "app_settings")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Setting.CACHE_REGION)
 @Data
 @NoArgsConstructor
 public class Setting {
 
+    // Second-level cache region, sized in application.conf
+    public static final String CACHE_REGION = "setting";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
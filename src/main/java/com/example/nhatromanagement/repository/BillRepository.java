@@ -1,15 +1,83 @@
 package com.example.nhatromanagement.repository;
 
+import com.example.nhatromanagement.dto.BillExportRowDTO;
+import com.example.nhatromanagement.dto.BillStatisticsDTO;
+import com.example.nhatromanagement.dto.BillVersionDTO;
 import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
 import com.example.nhatromanagement.model.Tenant;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BillRepository extends JpaRepository<Bill, Long> {
 
+    /**
+     * Leaves out the drafts of a billing run, which are not bills yet. Older rows
+     * have a null draft flag and count as regular bills.
+     */
+    String NOT_DRAFT = "(b.draft IS NULL OR b.draft = false)";
+
+    /**
+     * Select clause shared by the statistics queries below, drafts excluded. The
+     * database sums the matching rows and only a single row is returned.
+     */
+    String STATISTICS_SELECT = "SELECT new com.example.nhatromanagement.dto.BillStatisticsDTO(COUNT(b), "
+            + "COALESCE(SUM(b.roomRent), 0L), COALESCE(SUM(b.electricityCost), 0L), "
+            + "COALESCE(SUM(b.waterCost), 0L), COALESCE(SUM(b.trashFee), 0L), "
+            + "COALESCE(SUM(b.wifiFee), 0L), COALESCE(SUM(b.totalAmount), 0L)) FROM Bill b WHERE " + NOT_DRAFT;
+
+    /**
+     * Select clause shared by the rollup queries below, drafts excluded. Bills with
+     * a null paid flag are counted as unpaid, like the dashboard always did.
+     */
+    String ROLLUP_SELECT = "SELECT new com.example.nhatromanagement.model.MonthlyBillRollup(b.billYear, b.billMonth, "
+            + "COUNT(b), SUM(b.roomRent), SUM(b.electricityCost), SUM(b.waterCost), SUM(b.trashFee), "
+            + "SUM(b.wifiFee), SUM(b.totalAmount), SUM(CASE WHEN b.paid = true THEN 0 ELSE 1 END), "
+            + "SUM(CASE WHEN b.paid = true THEN 0L ELSE b.totalAmount END)) FROM Bill b WHERE " + NOT_DRAFT;
+
+    /**
+     * Finds a bill together with its tenant, which every bill page displays.
+     */
+    @Override
+    @EntityGraph(attributePaths = "tenant")
+    Optional<Bill> findById(Long id);
+
+    /**
+     * Finds all bills together with their tenants.
+     */
+    @Override
+    @EntityGraph(attributePaths = "tenant")
+    java.util.List<Bill> findAll();
+
+    /**
+     * Finds one page of bills together with their tenants.
+     */
+    @Override
+    @EntityGraph(attributePaths = "tenant")
+    Page<Bill> findAll(Pageable pageable);
+
+    /**
+     * Finds the versions of a bill and its tenant, and when the bill's billing
+     * period last changed, without loading either entity.
+     */
+    @Query("SELECT new com.example.nhatromanagement.dto.BillVersionDTO(b.version, t.version, r.updatedAt) "
+            + "FROM Bill b JOIN b.tenant t LEFT JOIN MonthlyBillRollup r "
+            + "ON r.billYear = b.billYear AND r.billMonth = b.billMonth WHERE b.id = :id")
+    Optional<BillVersionDTO> findVersionById(@Param("id") Long id);
+
     /**
      * Finds the latest bill for a given tenant based on year and month.
      * This is useful for fetching the previous month's electricity and water meter
@@ -21,6 +89,43 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
      */
     Optional<Bill> findTopByTenantOrderByBillYearDescBillMonthDescIdDesc(Tenant tenant);
 
+    /**
+     * Finds the latest bill of every tenant in a single query, with the tenant
+     * already fetched. A bill is the latest when no other bill of the same tenant
+     * comes after it by year, month and id.
+     *
+     * @return One bill per tenant that has at least one bill.
+     */
+    @Query("SELECT b FROM Bill b JOIN FETCH b.tenant WHERE NOT EXISTS (SELECT n.id FROM Bill n "
+            + "WHERE n.tenant = b.tenant AND (n.billYear > b.billYear OR (n.billYear = b.billYear "
+            + "AND (n.billMonth > b.billMonth OR (n.billMonth = b.billMonth AND n.id > b.id)))))")
+    java.util.List<Bill> findLatestBillOfEachTenant();
+
+    /**
+     * Finds the latest bill of each of the given tenants billed before a period,
+     * expressed as {@code year * 12 + (month - 1)}, with the tenant already
+     * fetched.
+     *
+     * @return At most one bill per tenant.
+     */
+    @Query("SELECT b FROM Bill b JOIN FETCH b.tenant WHERE b.tenant.id IN :tenantIds "
+            + "AND b.billYear * 12 + b.billMonth - 1 < :periodKey AND NOT EXISTS (SELECT n.id FROM Bill n "
+            + "WHERE n.tenant = b.tenant AND n.billYear * 12 + n.billMonth - 1 < :periodKey "
+            + "AND n.billYear * 12 + n.billMonth > b.billYear * 12 + b.billMonth)")
+    java.util.List<Bill> findLatestBillBeforePeriodByTenantIdIn(
+            @Param("tenantIds") java.util.Collection<Long> tenantIds, @Param("periodKey") int periodKey);
+
+    /**
+     * Finds the latest billing period that has a bill, expressed as
+     * {@code year * 12 + (month - 1)}. Drafts are left out, so the month a billing
+     * run prepared is the one after it.
+     *
+     * @return An Optional containing the period key, or an empty Optional if there
+     *         are no bills.
+     */
+    @Query("SELECT MAX(b.billYear * 12 + b.billMonth - 1) FROM Bill b WHERE " + NOT_DRAFT)
+    Optional<Integer> findLatestPeriodKey();
+
     /**
      * Finds a bill for a specific tenant, month, and year.
      * 
@@ -39,29 +144,255 @@ public interface BillRepository extends JpaRepository<Bill, Long> {
      * @param billYear  The year of the bill.
      * @return A list of Bills for the given month and year.
      */
+    @EntityGraph(attributePaths = "tenant")
     java.util.List<Bill> findByBillMonthAndBillYear(int billMonth, int billYear);
 
+    /**
+     * Finds the bills of the given tenants for a specific month and year.
+     *
+     * @param billMonth The month of the bill.
+     * @param billYear  The year of the bill.
+     * @param tenantIds The ids of the tenants.
+     * @return A list of Bills, at most one per tenant.
+     */
+    java.util.List<Bill> findByBillMonthAndBillYearAndTenantIdIn(int billMonth, int billYear,
+            java.util.Collection<Long> tenantIds);
+
     /**
      * Finds all bills for a specific year.
      * 
      * @param billYear The year of the bill.
      * @return A list of Bills for the given year.
      */
+    @EntityGraph(attributePaths = "tenant")
     java.util.List<Bill> findByBillYear(int billYear);
 
+    /**
+     * Finds one page of the bills for a specific year.
+     */
+    @EntityGraph(attributePaths = "tenant")
+    Page<Bill> findByBillYear(int billYear, Pageable pageable);
+
+    /**
+     * Finds one page of the bills for a specific month and year.
+     */
+    @EntityGraph(attributePaths = "tenant")
+    Page<Bill> findByBillMonthAndBillYear(int billMonth, int billYear, Pageable pageable);
+
+    /**
+     * Finds the most recent bills of a tenant, newest billing period first, by
+     * walking the (tenant_id, bill_year, bill_month) index backwards.
+     */
+    java.util.List<Bill> findByTenantIdOrderByBillYearDescBillMonthDesc(Long tenantId, Pageable pageable);
+
+    /**
+     * Finds the bills of a tenant billed before the given period, newest first.
+     * Continues a history listing after its last shown period without an offset.
+     */
+    @Query("SELECT b FROM Bill b WHERE b.tenant.id = :tenantId AND (b.billYear < :year "
+            + "OR (b.billYear = :year AND b.billMonth < :month)) ORDER BY b.billYear DESC, b.billMonth DESC")
+    java.util.List<Bill> findByTenantIdBefore(@Param("tenantId") Long tenantId, @Param("year") int year,
+            @Param("month") int month, Pageable pageable);
+
     /**
      * Finds all bills for a specific tenant.
      */
+    @EntityGraph(attributePaths = "tenant")
     java.util.List<Bill> findByTenant(Tenant tenant);
 
+    /**
+     * Finds one page of the bills of a specific tenant.
+     */
+    @EntityGraph(attributePaths = "tenant")
+    Page<Bill> findByTenantId(Long tenantId, Pageable pageable);
+
+    /**
+     * Finds one page of the bills of a specific tenant in a specific year.
+     */
+    @EntityGraph(attributePaths = "tenant")
+    Page<Bill> findByTenantIdAndBillYear(Long tenantId, int billYear, Pageable pageable);
+
+    /**
+     * Finds one page of the bills of a specific tenant in a specific month and
+     * year.
+     */
+    @EntityGraph(attributePaths = "tenant")
+    Page<Bill> findByTenantIdAndBillMonthAndBillYear(Long tenantId, int billMonth, int billYear, Pageable pageable);
+
     /**
      * Finds all bills for a specific tenant in a specific month and year.
      */
+    @EntityGraph(attributePaths = "tenant")
     java.util.List<Bill> findByTenantAndBillMonthAndBillYearOrderByBillMonthDesc(Tenant tenant, int billMonth,
             int billYear);
 
     /**
      * Finds all bills for a specific tenant in a specific year.
      */
+    @EntityGraph(attributePaths = "tenant")
     java.util.List<Bill> findByTenantAndBillYear(Tenant tenant, int billYear);
+
+    /**
+     * Aggregates all bills.
+     */
+    @Query(STATISTICS_SELECT)
+    BillStatisticsDTO aggregateStatistics();
+
+    /**
+     * Aggregates all bills for a specific year.
+     */
+    @Query(STATISTICS_SELECT + " AND b.billYear = :year")
+    BillStatisticsDTO aggregateStatisticsByYear(@Param("year") int year);
+
+    /**
+     * Aggregates all bills for a specific month and year.
+     */
+    @Query(STATISTICS_SELECT + " AND b.billMonth = :month AND b.billYear = :year")
+    BillStatisticsDTO aggregateStatisticsByMonthAndYear(@Param("month") int month, @Param("year") int year);
+
+    /**
+     * Aggregates all bills for a specific tenant.
+     */
+    @Query(STATISTICS_SELECT + " AND b.tenant.id = :tenantId")
+    BillStatisticsDTO aggregateStatisticsByTenant(@Param("tenantId") Long tenantId);
+
+    /**
+     * Aggregates all bills for a specific tenant in a specific year.
+     */
+    @Query(STATISTICS_SELECT + " AND b.tenant.id = :tenantId AND b.billYear = :year")
+    BillStatisticsDTO aggregateStatisticsByTenantAndYear(@Param("tenantId") Long tenantId, @Param("year") int year);
+
+    /**
+     * Aggregates all bills for a specific tenant in a specific month and year.
+     */
+    @Query(STATISTICS_SELECT + " AND b.tenant.id = :tenantId AND b.billMonth = :month AND b.billYear = :year")
+    BillStatisticsDTO aggregateStatisticsByTenantAndMonthAndYear(@Param("tenantId") Long tenantId,
+            @Param("month") int month, @Param("year") int year);
+
+    /**
+     * Aggregates the bills of every billing period, used to rebuild the rollup
+     * table from scratch.
+     */
+    @Query(ROLLUP_SELECT + " GROUP BY b.billYear, b.billMonth")
+    java.util.List<MonthlyBillRollup> aggregateRollups();
+
+    /**
+     * Aggregates the bills of a single billing period. Empty if the period has no
+     * bills.
+     */
+    @Query(ROLLUP_SELECT + " AND b.billYear = :year AND b.billMonth = :month GROUP BY b.billYear, b.billMonth")
+    Optional<MonthlyBillRollup> aggregateRollup(@Param("year") int year, @Param("month") int month);
+
+    /**
+     * Aggregates the bills of several billing periods, each expressed as
+     * {@code year * 12 + (month - 1)}. Periods without bills are left out.
+     */
+    @Query(ROLLUP_SELECT + " AND b.billYear * 12 + b.billMonth - 1 IN :periodKeys GROUP BY b.billYear, b.billMonth")
+    java.util.List<MonthlyBillRollup> aggregateRollupsByPeriodKeyIn(
+            @Param("periodKeys") java.util.Collection<Integer> periodKeys);
+
+    /**
+     * Finds the distinct billing periods of the given bills, each expressed as
+     * {@code year * 12 + (month - 1)}.
+     */
+    @Query("SELECT DISTINCT b.billYear * 12 + b.billMonth - 1 FROM Bill b WHERE b.id IN :ids")
+    java.util.List<Integer> findPeriodKeysByIdIn(@Param("ids") java.util.Collection<Long> ids);
+
+    /**
+     * Sets the paid flag of the given bills in a single statement, bumping their
+     * versions. Only bills still at the given version are updated, the others
+     * were changed by someone else since they were read.
+     *
+     * @return The number of bills updated.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Bill b SET b.paid = :paid, b.version = b.version + 1 WHERE b.id IN :ids AND b.version = :version")
+    int updatePaidByIdInAndVersion(@Param("ids") java.util.Collection<Long> ids, @Param("version") long version,
+            @Param("paid") boolean paid);
+
+    /**
+     * Deletes the given bills in a single statement, without loading them.
+     *
+     * @return The number of bills deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Bill b WHERE b.id IN :ids")
+    int deleteByIdIn(@Param("ids") java.util.Collection<Long> ids);
+
+    /**
+     * Copies every bill of a tenant into the bill archive in a single statement.
+     *
+     * @return The number of bills archived.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("INSERT INTO BillArchive (id, tenantId, tenantName, billMonth, billYear, electricityKwhPreviousTenths, "
+            + "electricityKwhCurrentTenths, waterM3PreviousTenths, waterM3CurrentTenths, trashFee, wifiFee, roomRent, "
+            + "electricityCost, waterCost, totalAmount, occupantName, paid, archivedAt) "
+            + "SELECT b.id, t.id, t.name, b.billMonth, b.billYear, b.electricityKwhPreviousTenths, "
+            + "b.electricityKwhCurrentTenths, b.waterM3PreviousTenths, b.waterM3CurrentTenths, b.trashFee, b.wifiFee, "
+            + "b.roomRent, b.electricityCost, b.waterCost, b.totalAmount, b.occupantName, b.paid, LOCAL DATETIME "
+            + "FROM Bill b JOIN b.tenant t WHERE t.id = :tenantId")
+    int archiveByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Deletes every bill of a tenant in a single statement, without loading them.
+     *
+     * @return The number of bills deleted.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Bill b WHERE b.tenant.id = :tenantId")
+    int deleteByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Finds the distinct billing periods of a tenant's bills, each expressed as
+     * {@code year * 12 + (month - 1)}.
+     */
+    @Query("SELECT DISTINCT b.billYear * 12 + b.billMonth - 1 FROM Bill b WHERE b.tenant.id = :tenantId")
+    java.util.List<Integer> findPeriodKeysByTenantId(@Param("tenantId") Long tenantId);
+
+    /**
+     * Finds the five most recent bills across all tenants.
+     */
+    @EntityGraph(attributePaths = "tenant")
+    java.util.List<Bill> findTop5ByOrderByBillYearDescBillMonthDescIdDesc();
+
+    /**
+     * Finds the next page of bills matching the optional filters, with their
+     * tenants, in id order from the given id (exclusive). A null filter matches
+     * every bill.
+     */
+    @Query("SELECT b FROM Bill b JOIN FETCH b.tenant t WHERE b.id > :afterId "
+            + "AND (:tenantId IS NULL OR t.id = :tenantId) AND (:year IS NULL OR b.billYear = :year) "
+            + "AND (:month IS NULL OR b.billMonth = :month) ORDER BY b.id")
+    java.util.List<Bill> findWithTenantByFilterAfterId(@Param("month") Integer month, @Param("year") Integer year,
+            @Param("tenantId") Long tenantId, @Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Rows fetched from the database per round trip while streaming an export.
+     */
+    String EXPORT_FETCH_SIZE = "500";
+
+    /**
+     * Streams the export rows of the bills matching the optional filters, newest
+     * billing period first. A null filter matches every bill. The rows are
+     * fetched in batches of {@link #EXPORT_FETCH_SIZE} as the stream is read,
+     * which needs an open read-only transaction, and the stream must be closed.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+    @Query("SELECT new com.example.nhatromanagement.dto.BillExportRowDTO(b.id, t.name, b.billYear, b.billMonth, "
+            + "b.occupantName, b.electricityKwhPreviousTenths, b.electricityKwhCurrentTenths, "
+            + "b.waterM3PreviousTenths, b.waterM3CurrentTenths, b.roomRent, b.electricityCost, b.waterCost, "
+            + "b.trashFee, b.wifiFee, b.totalAmount, b.paid, b.draft) FROM Bill b JOIN b.tenant t "
+            + "WHERE (:tenantId IS NULL OR t.id = :tenantId) AND (:year IS NULL OR b.billYear = :year) "
+            + "AND (:month IS NULL OR b.billMonth = :month) ORDER BY b.billYear DESC, b.billMonth DESC, b.id DESC")
+    Stream<BillExportRowDTO> streamExportRows(@Param("month") Integer month, @Param("year") Integer year,
+            @Param("tenantId") Long tenantId);
+
+    /**
+     * Finds the next page of the given bills, with their tenants, in id order from
+     * the given id (exclusive).
+     */
+    @Query("SELECT b FROM Bill b JOIN FETCH b.tenant WHERE b.id > :afterId AND b.id IN :ids ORDER BY b.id")
+    java.util.List<Bill> findWithTenantByIdInAfterId(@Param("ids") java.util.Collection<Long> ids,
+            @Param("afterId") long afterId, Pageable pageable);
 }
@@ -0,0 +1,98 @@
+package com.example.nhatromanagement.repository;
+
+import com.example.nhatromanagement.dto.ChangeMarkerDTO;
+import com.example.nhatromanagement.dto.DashboardSummaryDTO;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface MonthlyBillRollupRepository extends JpaRepository<MonthlyBillRollup, Long> {
+
+    // Query cache region of the billed years, sized in application.conf
+    String YEARS_CACHE_REGION = "billed-years";
+
+    Optional<MonthlyBillRollup> findByBillYearAndBillMonth(int billYear, int billMonth);
+
+    /**
+     * Creates the empty rollup row of a billing period unless it exists. Native so
+     * that a concurrent insert of the same period waits for the other transaction
+     * instead of failing on the unique constraint, see BillRollupService.
+     *
+     * Declares the rollup table as its only query space, otherwise Hibernate treats
+     * a native statement as touching every table and empties the second-level and
+     * query caches each time a bill is saved.
+     *
+     * @return 1 when the row was created, 0 when it already existed
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "monthly_bill_rollup"))
+    @Query(value = "INSERT INTO monthly_bill_rollup (bill_year, bill_month, bill_count, total_room_rent, "
+            + "total_electricity_cost, total_water_cost, total_trash_fee, total_wifi_fee, total_amount, "
+            + "unpaid_count, unpaid_amount, change_count) VALUES (:year, :month, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0) "
+            + "ON CONFLICT (bill_year, bill_month) DO NOTHING", nativeQuery = true)
+    int insertIfAbsent(@Param("year") int billYear, @Param("month") int billMonth);
+
+    /**
+     * Finds the rollup of a billing period and locks it until the end of the
+     * transaction, so concurrent writers of the same period refresh it one after
+     * another.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<MonthlyBillRollup> findForUpdateByBillYearAndBillMonth(int billYear, int billMonth);
+
+    /**
+     * Finds the rollups of several periods, each expressed as
+     * {@code year * 12 + (month - 1)}, and locks them until the end of the
+     * transaction. Rows are locked in period order, like refreshPeriods does.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM MonthlyBillRollup r WHERE r.billYear * 12 + r.billMonth - 1 IN :periodKeys "
+            + "ORDER BY r.billYear, r.billMonth")
+    List<MonthlyBillRollup> findForUpdateByPeriodKeyIn(@Param("periodKeys") Collection<Integer> periodKeys);
+
+    /**
+     * Finds the rollups between two periods (inclusive), both expressed as
+     * {@code year * 12 + (month - 1)}.
+     */
+    @Query("SELECT r FROM MonthlyBillRollup r WHERE r.billYear * 12 + r.billMonth - 1 BETWEEN :fromKey AND :toKey "
+            + "ORDER BY r.billYear, r.billMonth")
+    List<MonthlyBillRollup> findPeriodRange(@Param("fromKey") int fromKey, @Param("toKey") int toKey);
+
+    /**
+     * Finds the years that have at least one bill, newest first. Cached until the
+     * rollup table changes.
+     */
+    @Query("SELECT DISTINCT r.billYear FROM MonthlyBillRollup r WHERE r.billCount > 0 ORDER BY r.billYear DESC")
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = YEARS_CACHE_REGION) })
+    List<Integer> findBilledYears();
+
+    /**
+     * Sums every rollup row into the all-time dashboard totals.
+     */
+    @Query("SELECT new com.example.nhatromanagement.dto.DashboardSummaryDTO(COALESCE(SUM(r.billCount), 0), "
+            + "COALESCE(SUM(r.totalAmount), 0L), COALESCE(SUM(r.unpaidCount), 0), "
+            + "COALESCE(SUM(r.unpaidAmount), 0L)) FROM MonthlyBillRollup r")
+    DashboardSummaryDTO summarize();
+
+    /**
+     * Summarizes the change counters of all billing periods. Any change to any
+     * bill changes the result.
+     */
+    @Query("SELECT new com.example.nhatromanagement.dto.ChangeMarkerDTO(COALESCE(SUM(r.changeCount), 0L), "
+            + "COALESCE(MAX(r.id), 0L), COUNT(r), MAX(r.updatedAt)) FROM MonthlyBillRollup r")
+    ChangeMarkerDTO findChangeMarker();
+}
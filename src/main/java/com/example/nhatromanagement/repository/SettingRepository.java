@@ -1,12 +1,27 @@
 package com.example.nhatromanagement.repository;
 
 import com.example.nhatromanagement.model.Setting;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface SettingRepository extends JpaRepository<Setting, Long> {
+
+    // Query cache region of the settings lookups, sized in application.conf
+    String LOOKUP_CACHE_REGION = "setting-lookups";
+
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = LOOKUP_CACHE_REGION) })
     Optional<Setting> findBySettingKey(String settingKey);
+
+    @Override
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = LOOKUP_CACHE_REGION) })
+    List<Setting> findAll();
 }
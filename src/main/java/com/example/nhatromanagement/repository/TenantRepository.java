@@ -1,12 +1,45 @@
 package com.example.nhatromanagement.repository;
 
+import com.example.nhatromanagement.dto.ChangeMarkerDTO;
 import com.example.nhatromanagement.model.Tenant;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface TenantRepository extends JpaRepository<Tenant, Long> {
-    // Basic CRUD methods are inherited
-    // Add custom query methods if needed, e.g.:
-    // Tenant findByName(String name);
+
+    // Query cache region of the room list, sized in application.conf
+    String LIST_CACHE_REGION = "tenant-list";
+
+    /**
+     * Finds all tenants. The result is cached until a tenant is added, renamed or
+     * deleted, the tenants themselves come from the second-level cache.
+     */
+    @Override
+    @QueryHints({ @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = LIST_CACHE_REGION) })
+    List<Tenant> findAll();
+
+    /**
+     * Finds the ids of the tenants that have no bill for a specific month and
+     * year, in id order.
+     */
+    @Query("SELECT t.id FROM Tenant t WHERE NOT EXISTS (SELECT b.id FROM Bill b WHERE b.tenant = t "
+            + "AND b.billYear = :year AND b.billMonth = :month) ORDER BY t.id")
+    List<Long> findIdsWithoutBillFor(@Param("year") int year, @Param("month") int month);
+
+    /**
+     * Summarizes the versions of all tenants, changed by any insert, rename or
+     * delete.
+     */
+    @Query("SELECT new com.example.nhatromanagement.dto.ChangeMarkerDTO(COALESCE(SUM(t.version), 0L), "
+            + "COALESCE(MAX(t.id), 0L), COUNT(t)) FROM Tenant t")
+    ChangeMarkerDTO findChangeMarker();
 }
@@ -0,0 +1,32 @@
+package com.example.nhatromanagement.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Locale;
+
+public interface BillExportService {
+
+    /**
+     * Render every bill matching the bills list filters to PDF and write them to a
+     * ZIP archive on the given stream as they complete, in id order. Bills are read
+     * a page at a time. The month filter only applies together with a year. The
+     * stream is not closed.
+     */
+    void writePdfArchive(Integer month, Integer year, Long tenantId, Locale locale, OutputStream out)
+            throws IOException;
+
+    /**
+     * Render the given bills to PDF and write them to a ZIP archive on the given
+     * stream as they complete, in id order. The stream is not closed.
+     */
+    void writePdfArchive(Collection<Long> billIds, Locale locale, OutputStream out) throws IOException;
+
+    /**
+     * Write the bills matching the bills list filters to the given stream as a
+     * UTF-8 CSV, newest billing period first. Rows are streamed from the database
+     * and written as they arrive. The month filter only applies together with a
+     * year. The stream is not closed.
+     */
+    void writeCsv(Integer month, Integer year, Long tenantId, OutputStream out) throws IOException;
+}
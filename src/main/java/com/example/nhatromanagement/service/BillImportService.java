@@ -0,0 +1,22 @@
+package com.example.nhatromanagement.service;
+
+import com.example.nhatromanagement.dto.BillImportResultDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BillImportService {
+
+    /**
+     * Create bills from a UTF-8 CSV of meter readings, one bill per line:
+     * {@code room,period,electricity,water[,roomRent,trashFee,wifiFee[,occupantName]]}
+     * where the room is the tenant name and the period is {@code yyyy-MM}. A
+     * header line is skipped. Fees left out are carried forward from the previous
+     * bill. Lines of a room should be in period order, each bill takes its
+     * previous readings from the bill of the month before.
+     * <p>
+     * The file is read as a stream and saved in batches, one transaction per
+     * batch. Invalid lines are reported and skipped.
+     */
+    BillImportResultDTO importCsv(InputStream in) throws IOException;
+}
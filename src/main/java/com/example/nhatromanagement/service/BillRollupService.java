@@ -0,0 +1,51 @@
+package com.example.nhatromanagement.service;
+
+import com.example.nhatromanagement.dto.BillStatisticsDTO;
+import com.example.nhatromanagement.dto.DashboardSummaryDTO;
+import com.example.nhatromanagement.dto.MonthlyStatDTO;
+
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+
+public interface BillRollupService {
+
+    /**
+     * Recompute the rollup of one billing period from its bills. Must be called in
+     * the transaction that changed the bills.
+     */
+    void refreshPeriod(int year, int month);
+
+    /**
+     * Recompute the rollups of several billing periods
+     */
+    void refreshPeriods(Collection<YearMonth> periods);
+
+    /**
+     * Drop every rollup row and recompute the table from the bill table
+     *
+     * @return number of billing periods written
+     */
+    int rebuild();
+
+    /**
+     * Get the all-time totals for the dashboard summary cards
+     */
+    DashboardSummaryDTO getSummary();
+
+    /**
+     * Get the years that have bills, newest first
+     */
+    List<Integer> getBilledYears();
+
+    /**
+     * Get one entry per month between two periods (inclusive), months without
+     * bills are returned with zero totals
+     */
+    List<MonthlyStatDTO> getMonthlyStats(YearMonth from, YearMonth to);
+
+    /**
+     * Get bill statistics of a single billing period from its rollup
+     */
+    BillStatisticsDTO getStatistics(int month, int year);
+}
@@ -1,16 +1,32 @@
 package com.example.nhatromanagement.service;
 
+import com.example.nhatromanagement.dto.BillHistoryDTO;
 import com.example.nhatromanagement.dto.BillStatisticsDTO;
+import com.example.nhatromanagement.dto.BulkBillResultDTO;
+import com.example.nhatromanagement.dto.BulkMeterReadingDTO;
 import com.example.nhatromanagement.model.Bill;
 import com.example.nhatromanagement.model.Tenant;
+import org.springframework.data.domain.Page;
 
 import java.time.YearMonth;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 public interface BillService {
     Bill createBill(Long tenantId, int year, int month, double electricityKwhCurrent, double waterM3Current,
-            double trashFee, double wifiFee, double roomRent, String occupantName);
+            long trashFee, long wifiFee, long roomRent, String occupantName);
+
+    /**
+     * Create the bills of a quick-entry submission in one transaction. Rooms that
+     * are not selected or have no readings are skipped; rooms that fail
+     * validation are reported in the result and do not prevent the others from
+     * being created.
+     *
+     * @param bulkDTO Billing period and one reading per room
+     * @return Number of bills created and one error message per failed room
+     */
+    BulkBillResultDTO createBills(BulkMeterReadingDTO bulkDTO);
 
     Optional<Bill> getBillById(Long id);
 
@@ -24,12 +40,41 @@ public interface BillService {
 
     void deleteBill(Long billId);
 
-    void bulkUpdateStatus(List<Long> billIds, boolean isPaid);
+    /**
+     * Marks the given bills as paid or unpaid, each only if it is still at the
+     * version the user saw.
+     *
+     * @param versionsById The version of each bill as it was shown to the user.
+     * @return The number of bills updated, bills changed or deleted meanwhile
+     *         are skipped.
+     */
+    int bulkUpdateStatus(Map<Long, Long> versionsById, boolean isPaid);
 
-    void bulkDelete(List<Long> billIds);
+    /**
+     * Deletes the given bills.
+     *
+     * @return The number of bills deleted, ids that do not exist are skipped.
+     */
+    int bulkDelete(List<Long> billIds);
 
     Optional<Bill> getLatestBillForTenant(Long tenantId);
 
+    /**
+     * Get the latest bill of every tenant, keyed by tenant id. Tenants without
+     * bills are absent from the map.
+     */
+    Map<Long, Bill> getLatestBillsByTenant();
+
+    /**
+     * Get the latest billing period that has at least one bill
+     */
+    Optional<YearMonth> getLatestBillingPeriod();
+
+    /**
+     * Get the five most recent bills across all tenants
+     */
+    List<Bill> getRecentBills();
+
     /**
      * Get bill statistics by month and/or year
      * 
@@ -73,4 +118,22 @@ public interface BillService {
      * Get bills filtered by tenant, month and year
      */
     List<Bill> getBillsByTenantAndMonthYear(Tenant tenant, int month, int year);
+
+    /**
+     * Get one page of bills, newest billing period first, optionally filtered by
+     * tenant, month and year. The month filter only applies together with a year.
+     */
+    Page<Bill> getBillsPage(Integer month, Integer year, Long tenantId, int page, int size);
+
+    /**
+     * Get one page of a tenant's bill history, newest billing period first.
+     *
+     * @param before Only return bills of earlier periods, null for the newest page
+     */
+    BillHistoryDTO getBillHistory(Long tenantId, YearMonth before, int size);
+
+    /**
+     * Get the years that have bills, newest first
+     */
+    List<Integer> getBillYears();
 }
@@ -0,0 +1,25 @@
+package com.example.nhatromanagement.service;
+
+import com.example.nhatromanagement.dto.BillingRunDTO;
+
+import java.time.YearMonth;
+import java.util.Optional;
+
+public interface BillingRunService {
+
+    /**
+     * Start closing a billing period: every room without a bill for the period
+     * gets a draft bill carrying forward its latest readings, rent and fees. The
+     * rooms are processed in chunks on a background pool, this returns as soon
+     * as the chunks are queued.
+     *
+     * @throws IllegalStateException if another run is still in progress
+     */
+    BillingRunDTO startRun(YearMonth period);
+
+    /**
+     * Get the progress of the latest run, empty if none was started since the
+     * application started
+     */
+    Optional<BillingRunDTO> getLatestRun();
+}
@@ -0,0 +1,21 @@
+package com.example.nhatromanagement.service;
+
+import com.example.nhatromanagement.dto.PageVersionDTO;
+
+import java.util.Optional;
+
+public interface PageVersionService {
+
+    /**
+     * Get the version of a bill's detail page: the bill, its room and the unit
+     * prices. Empty if the bill does not exist.
+     */
+    Optional<PageVersionDTO> getBillVersion(Long billId);
+
+    /**
+     * Get the version of the pages listing or adding up bills: every billing
+     * period and every room. Any change to a bill changes it, through the change
+     * counter of the bill's period rollup.
+     */
+    PageVersionDTO getBillsVersion();
+}
@@ -2,7 +2,20 @@ package com.example.nhatromanagement.service;
 
 import com.example.nhatromanagement.model.Bill;
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.Locale;
 
 public interface PdfService {
     ByteArrayOutputStream generateBillPdf(Bill bill) throws Exception;
+
+    /**
+     * Render a bill in the given locale. Safe to call from threads that are not
+     * handling a web request, as long as the bill's tenant is already loaded.
+     */
+    ByteArrayOutputStream generateBillPdf(Bill bill, Locale locale) throws Exception;
+
+    /**
+     * Render a bill straight into the given stream, which is left open.
+     */
+    void writeBillPdf(Bill bill, Locale locale, OutputStream out) throws Exception;
 }
@@ -1,5 +1,6 @@
 package com.example.nhatromanagement.service;
 
+import com.example.nhatromanagement.dto.PricingSnapshot;
 import com.example.nhatromanagement.model.Setting;
 
 import java.util.List;
@@ -8,6 +9,13 @@ import java.util.Optional;
 public interface SettingService {
     Optional<String> getSettingValue(String key);
     Optional<Double> getDoubleSettingValue(String key);
+
+    /**
+     * Returns the current prices without querying the database. The snapshot is
+     * replaced whenever a setting is saved.
+     */
+    PricingSnapshot getPricing();
+
     void saveSetting(String key, String value, String description);
     void saveSetting(Setting setting);
     List<Setting> getAllSettings();
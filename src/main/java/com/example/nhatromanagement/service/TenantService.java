@@ -1,5 +1,6 @@
 package com.example.nhatromanagement.service;
 
+import com.example.nhatromanagement.dto.TenantDeletionResultDTO;
 import com.example.nhatromanagement.model.Tenant;
 import java.util.List;
 import java.util.Optional;
@@ -8,6 +9,12 @@ public interface TenantService {
     Tenant saveTenant(Tenant tenant);
     Optional<Tenant> getTenantById(Long id);
     List<Tenant> getAllTenants();
+    long countTenants();
     Tenant updateTenantName(Long id, String newName);
-    void deleteTenant(Long id);
+    /**
+     * Deletes a room together with its bills, without loading the bills.
+     *
+     * @param archiveBills Copy the bills to the bill archive before deleting them
+     */
+    TenantDeletionResultDTO deleteTenant(Long id, boolean archiveBills);
 }
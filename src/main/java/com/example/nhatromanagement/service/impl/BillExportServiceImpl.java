@@ -0,0 +1,242 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.config.ExecutorConfig;
+import com.example.nhatromanagement.dto.BillExportRowDTO;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.service.BillExportService;
+import com.example.nhatromanagement.service.PdfService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+@Slf4j
+@Service
+public class BillExportServiceImpl implements BillExportService {
+
+    private static final String CSV_HEADER = "id,room,period,occupant,electricity_previous,electricity_current,"
+            + "water_previous,water_current,room_rent,electricity_cost,water_cost,trash_fee,wifi_fee,total_amount,"
+            + "paid,draft";
+
+    private final BillRepository billRepository;
+    private final PdfService pdfService;
+    private final ThreadPoolTaskExecutor pdfRenderExecutor;
+    private final EntityManager entityManager;
+    private final int pageSize;
+
+    @Autowired
+    public BillExportServiceImpl(BillRepository billRepository, PdfService pdfService,
+            @Qualifier(ExecutorConfig.PDF_RENDER_EXECUTOR) ThreadPoolTaskExecutor pdfRenderExecutor,
+            EntityManager entityManager, @Value("${app.export.pdf-page-size:100}") int pageSize) {
+        this.billRepository = billRepository;
+        this.pdfService = pdfService;
+        this.pdfRenderExecutor = pdfRenderExecutor;
+        this.entityManager = entityManager;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public void writePdfArchive(Integer month, Integer year, Long tenantId, Locale locale, OutputStream out)
+            throws IOException {
+        Integer monthFilter = year != null ? month : null;
+        writePdfArchive(afterId -> billRepository.findWithTenantByFilterAfterId(monthFilter, year, tenantId,
+                afterId, PageRequest.of(0, pageSize)), locale, out);
+    }
+
+    @Override
+    public void writePdfArchive(Collection<Long> billIds, Locale locale, OutputStream out) throws IOException {
+        if (billIds == null || billIds.isEmpty()) {
+            writePdfArchive(afterId -> List.of(), locale, out);
+            return;
+        }
+        Set<Long> ids = new HashSet<>(billIds);
+        writePdfArchive(afterId -> billRepository.findWithTenantByIdInAfterId(ids, afterId,
+                PageRequest.of(0, pageSize)), locale, out);
+    }
+
+    /**
+     * Writes the archive of the bills returned page by page by nextPage, which is
+     * given the id of the last bill written so far.
+     */
+    private void writePdfArchive(LongFunction<List<Bill>> nextPage, Locale locale, OutputStream out)
+            throws IOException {
+        // Keep a small window of renders in flight: enough to keep every worker busy,
+        // few enough that only a handful of finished PDFs are held in memory at once
+        int window = pdfRenderExecutor.getMaxPoolSize() * 2;
+        Deque<Future<byte[]>> pending = new ArrayDeque<>();
+        Deque<Bill> pendingBills = new ArrayDeque<>();
+        Set<String> entryNames = new HashSet<>();
+        List<String> errors = new ArrayList<>();
+
+        ZipOutputStream zip = new ZipOutputStream(out, StandardCharsets.UTF_8);
+        try {
+            long lastId = 0;
+            List<Bill> page;
+            do {
+                // With open-in-view the request's persistence context is still bound
+                // here, drop the pages already fetched so they can be collected
+                entityManager.clear();
+                page = nextPage.apply(lastId);
+                for (Bill bill : page) {
+                    if (pending.size() >= window) {
+                        writeEntry(zip, pendingBills.removeFirst(), pending.removeFirst(), entryNames, errors);
+                    }
+                    pending.addLast(render(bill, locale));
+                    pendingBills.addLast(bill);
+                    lastId = bill.getId();
+                }
+            } while (page.size() >= pageSize);
+            while (!pending.isEmpty()) {
+                writeEntry(zip, pendingBills.removeFirst(), pending.removeFirst(), entryNames, errors);
+            }
+
+            if (!errors.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("errors.txt"));
+                zip.write(String.join(System.lineSeparator(), errors).getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            // The client may have gone away, do not keep rendering for nobody
+            pending.forEach(future -> future.cancel(true));
+        }
+    }
+
+    // Renders on the pool, or on the calling thread when the pool's queue is full
+    // because other downloads are running, rather than failing halfway through
+    private Future<byte[]> render(Bill bill, Locale locale) {
+        FutureTask<byte[]> task = new FutureTask<>(() -> pdfService.generateBillPdf(bill, locale).toByteArray());
+        try {
+            pdfRenderExecutor.execute(task);
+        } catch (TaskRejectedException e) {
+            log.debug("PDF render pool is full, rendering bill {} on the calling thread", bill.getId());
+            task.run();
+        }
+        return task;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void writeCsv(Integer month, Integer year, Long tenantId, OutputStream out) throws IOException {
+        // Not closed, that would close the caller's stream
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // Byte order mark, so spreadsheet programs read the room names as UTF-8
+        writer.write('\uFEFF');
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        try (Stream<BillExportRowDTO> rows = billRepository.streamExportRows(year != null ? month : null, year,
+                tenantId)) {
+            Iterator<BillExportRowDTO> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, iterator.next());
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeRow(Writer writer, BillExportRowDTO row) throws IOException {
+        writer.write(String.valueOf(row.getId()));
+        writer.write(',');
+        writer.write(csvField(row.getTenantName()));
+        writer.write(',');
+        writer.write(String.format("%04d-%02d", row.getBillYear(), row.getBillMonth()));
+        writer.write(',');
+        writer.write(csvField(row.getOccupantName()));
+        for (long tenths : new long[] { row.getElectricityKwhPreviousTenths(), row.getElectricityKwhCurrentTenths(),
+                row.getWaterM3PreviousTenths(), row.getWaterM3CurrentTenths() }) {
+            writer.write(',');
+            writer.write(BigDecimal.valueOf(tenths, 1).toPlainString());
+        }
+        for (long amount : new long[] { row.getRoomRent(), row.getElectricityCost(), row.getWaterCost(),
+                row.getTrashFee(), row.getWifiFee(), row.getTotalAmount() }) {
+            writer.write(',');
+            writer.write(Long.toString(amount));
+        }
+        writer.write(',');
+        writer.write(Boolean.TRUE.equals(row.getPaid()) ? "true" : "false");
+        writer.write(',');
+        writer.write(Boolean.TRUE.equals(row.getDraft()) ? "true" : "false");
+        writer.write("\r\n");
+    }
+
+    // Quotes a text field when it holds a separator, quote or line break. Text a
+    // spreadsheet would read as a formula gets a leading apostrophe, so a room or
+    // occupant name cannot run one when the file is opened. A leading tab or
+    // carriage return counts too, spreadsheets skip it and read what follows.
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+            value = "'" + value;
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+                && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private void writeEntry(ZipOutputStream zip, Bill bill, Future<byte[]> future, Set<String> entryNames,
+            List<String> errors) throws IOException {
+        byte[] pdf;
+        try {
+            pdf = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while rendering bill " + bill.getId());
+        } catch (ExecutionException e) {
+            log.warn("Error rendering PDF for bill {}: {}", bill.getId(), e.getCause().getMessage());
+            errors.add("Bill " + bill.getId() + ": " + e.getCause().getMessage());
+            return;
+        }
+
+        zip.putNextEntry(new ZipEntry(entryName(bill, entryNames)));
+        zip.write(pdf);
+        zip.closeEntry();
+    }
+
+    private static String entryName(Bill bill, Set<String> entryNames) {
+        String room = bill.getTenant().getName().trim().replaceAll("[\\s/\\\\]+", "_");
+        String base = "HoaDon_" + room + "_Thang" + bill.getBillMonth() + "_Nam" + bill.getBillYear();
+        String name = base + ".pdf";
+        if (!entryNames.add(name)) {
+            // Two rooms with the same name, keep both files
+            name = base + "_" + bill.getId() + ".pdf";
+            entryNames.add(name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,408 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BillImportResultDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillImportService;
+import com.example.nhatromanagement.service.BillRollupService;
+import com.example.nhatromanagement.service.SettingService;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Slf4j
+@Service
+public class BillImportServiceImpl implements BillImportService {
+
+    // Errors kept for the report, the rest are only counted
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final int MIN_COLUMNS = 4;
+    private static final int MAX_COLUMNS = 8;
+
+    private final TenantRepository tenantRepository;
+    private final BillRepository billRepository;
+    private final SettingService settingService;
+    private final BillRollupService billRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    @Autowired
+    public BillImportServiceImpl(TenantRepository tenantRepository, BillRepository billRepository,
+            SettingService settingService, BillRollupService billRollupService,
+            PlatformTransactionManager transactionManager, EntityManager entityManager,
+            @Value("${app.import.batch-size:500}") int batchSize) {
+        this.tenantRepository = tenantRepository;
+        this.billRepository = billRepository;
+        this.settingService = settingService;
+        this.billRollupService = billRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * A parsed line waiting for its batch, fees are null when left out
+     */
+    private record ImportLine(int lineNumber, Long tenantId, String tenantName, YearMonth period,
+            long electricityTenths, long waterTenths, Long roomRent, Long trashFee, Long wifiFee,
+            String occupantName) {
+    }
+
+    /**
+     * Readings and fees of the last bill imported for a room, so the next line
+     * of the same room does not have to read it back
+     */
+    private record Carried(int periodKey, long electricityTenths, long waterTenths, long roomRent,
+            long trashFee, long wifiFee, String occupantName) {
+
+        static Carried of(Bill bill) {
+            return new Carried(MonthlyBillRollup.periodKey(YearMonth.of(bill.getBillYear(), bill.getBillMonth())),
+                    bill.getElectricityKwhCurrentTenths(), bill.getWaterM3CurrentTenths(), bill.getRoomRent(),
+                    bill.getTrashFee(), bill.getWifiFee(), bill.getOccupantName());
+        }
+    }
+
+    @Override
+    public BillImportResultDTO importCsv(InputStream in) throws IOException {
+        BillImportResultDTO result = new BillImportResultDTO();
+        Map<String, Long> tenantIds = loadTenantIds();
+        Map<Long, Carried> carried = new HashMap<>();
+        // Same prices for the whole file, whatever is saved meanwhile
+        PricingSnapshot pricing = settingService.getPricing();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        List<ImportLine> batch = new ArrayList<>(batchSize);
+        String line;
+        int lineNumber = 0;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (lineNumber == 1) {
+                // Spreadsheet programs start UTF-8 files with a byte order mark
+                line = line.startsWith("\uFEFF") ? line.substring(1) : line;
+                if (line.trim().toLowerCase(Locale.ROOT).startsWith("room")) {
+                    continue;
+                }
+            }
+            if (line.isBlank()) {
+                continue;
+            }
+            result.setLineCount(result.getLineCount() + 1);
+            try {
+                batch.add(parseLine(lineNumber, line, tenantIds));
+            } catch (IllegalArgumentException e) {
+                addError(result, lineNumber, e.getMessage());
+                continue;
+            }
+            if (batch.size() >= batchSize) {
+                saveBatch(batch, carried, pricing, result);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            saveBatch(batch, carried, pricing, result);
+        }
+        log.info("CSV import: {} line(s), {} bill(s) imported, {} error(s)", result.getLineCount(),
+                result.getImportedCount(), result.getErrorCount());
+        return result;
+    }
+
+    /**
+     * Maps room names to tenant ids. A name shared by several rooms maps to null
+     * and cannot be imported.
+     */
+    private Map<String, Long> loadTenantIds() {
+        Map<String, Long> tenantIds = new HashMap<>();
+        for (Tenant tenant : tenantRepository.findAll()) {
+            String key = tenant.getName().trim().toLowerCase(Locale.ROOT);
+            tenantIds.put(key, tenantIds.containsKey(key) ? null : tenant.getId());
+        }
+        return tenantIds;
+    }
+
+    private static ImportLine parseLine(int lineNumber, String line, Map<String, Long> tenantIds) {
+        List<String> columns = splitCsv(line);
+        if (columns.size() < MIN_COLUMNS || columns.size() > MAX_COLUMNS) {
+            throw new IllegalArgumentException("Expected " + MIN_COLUMNS + " to " + MAX_COLUMNS
+                    + " columns but found " + columns.size());
+        }
+
+        String tenantName = columns.get(0);
+        String key = tenantName.toLowerCase(Locale.ROOT);
+        if (!tenantIds.containsKey(key)) {
+            throw new IllegalArgumentException("Room not found: " + tenantName);
+        }
+        Long tenantId = tenantIds.get(key);
+        if (tenantId == null) {
+            throw new IllegalArgumentException("Several rooms are named " + tenantName);
+        }
+
+        YearMonth period;
+        try {
+            period = YearMonth.parse(columns.get(1));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid period, expected yyyy-MM: " + columns.get(1));
+        }
+
+        long electricity = parseReading(columns.get(2), "electricity");
+        long water = parseReading(columns.get(3), "water");
+        Long roomRent = parseAmount(columns, 4, "room rent");
+        Long trashFee = parseAmount(columns, 5, "trash fee");
+        Long wifiFee = parseAmount(columns, 6, "wifi fee");
+        String occupantName = columns.size() > 7 && !columns.get(7).isEmpty() ? columns.get(7) : null;
+        return new ImportLine(lineNumber, tenantId, tenantName, period, electricity, water, roomRent, trashFee,
+                wifiFee, occupantName);
+    }
+
+    // Readings in units with at most one decimal, returned in tenths
+    private static long parseReading(String value, String name) {
+        try {
+            BigDecimal reading = new BigDecimal(value);
+            if (reading.signum() < 0) {
+                throw new IllegalArgumentException("Negative " + name + " reading: " + value);
+            }
+            return reading.movePointRight(1).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid " + name + " reading: " + value);
+        }
+    }
+
+    // Whole VND, null when the column is missing or empty
+    private static Long parseAmount(List<String> columns, int index, String name) {
+        if (columns.size() <= index || columns.get(index).isEmpty()) {
+            return null;
+        }
+        String value = columns.get(index);
+        try {
+            long amount = new BigDecimal(value).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            if (amount < 0) {
+                throw new IllegalArgumentException("Negative " + name + ": " + value);
+            }
+            return amount;
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IllegalArgumentException("Invalid " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Splits one CSV line on commas. Fields may be quoted, with a doubled quote
+     * standing for a quote inside a field. Unquoted fields are trimmed.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"' && field.toString().isBlank()) {
+                quoted = true;
+                wasQuoted = true;
+                field.setLength(0);
+            } else if (c == ',') {
+                fields.add(wasQuoted ? field.toString() : field.toString().trim());
+                field.setLength(0);
+                wasQuoted = false;
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(wasQuoted ? field.toString() : field.toString().trim());
+        return fields;
+    }
+
+    private void saveBatch(List<ImportLine> batch, Map<Long, Carried> carried, PricingSnapshot pricing,
+            BillImportResultDTO result) {
+        List<String> lineErrors = new ArrayList<>();
+        Map<Long, Carried> imported = new HashMap<>();
+        try {
+            Integer saved = transactionTemplate.execute(status -> {
+                lineErrors.clear();
+                imported.clear();
+                return createBills(batch, carried, pricing, lineErrors, imported);
+            });
+            result.setImportedCount(result.getImportedCount() + (saved != null ? saved : 0));
+            carried.putAll(imported);
+            lineErrors.forEach(error -> addError(result, error));
+        } catch (RuntimeException e) {
+            // The whole batch was rolled back, including lines that were valid
+            String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            log.warn("CSV import batch of lines {}-{} failed: {}", batch.get(0).lineNumber(),
+                    batch.get(batch.size() - 1).lineNumber(), reason);
+            for (ImportLine line : batch) {
+                addError(result, line.lineNumber(), "Not saved, the batch failed: " + reason);
+            }
+        } finally {
+            // With open-in-view the upload request's persistence context outlives each
+            // batch, drop the batch's bills so memory and flushes do not grow with the file
+            entityManager.clear();
+        }
+    }
+
+    private int createBills(List<ImportLine> batch, Map<Long, Carried> carried, PricingSnapshot pricing,
+            List<String> lineErrors, Map<Long, Carried> imported) {
+        // Existing bills of the batch's periods, and the previous bills no earlier
+        // line provides, loaded once per period
+        Map<Integer, Set<Long>> billed = new HashMap<>();
+        Map<Integer, Set<Long>> previousNeeded = new HashMap<>();
+        for (ImportLine line : batch) {
+            int periodKey = MonthlyBillRollup.periodKey(line.period());
+            billed.computeIfAbsent(periodKey, k -> new HashSet<>()).add(line.tenantId());
+            Carried last = carried.get(line.tenantId());
+            if (last == null || last.periodKey() != periodKey - 1) {
+                previousNeeded.computeIfAbsent(periodKey - 1, k -> new HashSet<>()).add(line.tenantId());
+            }
+        }
+        // Drafts left by the billing run are filled in, any other bill blocks the line
+        Map<Integer, Map<Long, Bill>> drafts = new HashMap<>();
+        for (Map.Entry<Integer, Set<Long>> entry : billed.entrySet()) {
+            Set<Long> billedTenantIds = new HashSet<>();
+            Map<Long, Bill> byTenant = new HashMap<>();
+            for (Bill bill : findBills(entry.getKey(), entry.getValue())) {
+                if (Boolean.TRUE.equals(bill.getDraft())) {
+                    byTenant.put(bill.getTenant().getId(), bill);
+                } else {
+                    billedTenantIds.add(bill.getTenant().getId());
+                }
+            }
+            entry.setValue(billedTenantIds);
+            drafts.put(entry.getKey(), byTenant);
+        }
+        Map<Integer, Map<Long, Carried>> previousBills = new HashMap<>();
+        for (Map.Entry<Integer, Set<Long>> entry : previousNeeded.entrySet()) {
+            Map<Long, Carried> byTenant = new HashMap<>();
+            for (Bill bill : findBills(entry.getKey(), entry.getValue())) {
+                byTenant.put(bill.getTenant().getId(), Carried.of(bill));
+            }
+            previousBills.put(entry.getKey(), byTenant);
+        }
+
+        List<Bill> newBills = new ArrayList<>();
+        Set<YearMonth> periods = new TreeSet<>();
+        for (ImportLine line : batch) {
+            int periodKey = MonthlyBillRollup.periodKey(line.period());
+            if (!billed.get(periodKey).add(line.tenantId())) {
+                lineErrors.add("Line " + line.lineNumber() + ": A bill already exists for " + line.tenantName()
+                        + " for " + line.period().getMonthValue() + "/" + line.period().getYear());
+                continue;
+            }
+
+            // A draft already carries the opening readings and fees when nothing earlier does
+            Bill draft = drafts.get(periodKey).get(line.tenantId());
+            Carried previous = previousOf(line.tenantId(), periodKey, imported, carried, previousBills);
+            if (previous == null && draft != null) {
+                previous = new Carried(periodKey - 1, draft.getElectricityKwhPreviousTenths(),
+                        draft.getWaterM3PreviousTenths(), draft.getRoomRent(), draft.getTrashFee(),
+                        draft.getWifiFee(), draft.getOccupantName());
+            }
+            Bill bill = toBill(line, previous);
+            try {
+                bill.calculateCosts(pricing.getElectricityPrice(), pricing.getWaterPrice());
+            } catch (IllegalStateException e) {
+                billed.get(periodKey).remove(line.tenantId());
+                lineErrors.add("Line " + line.lineNumber() + ": " + e.getMessage());
+                continue;
+            }
+            if (draft != null) {
+                draft.completeDraft(bill);
+                bill = draft;
+            }
+            newBills.add(bill);
+            periods.add(line.period());
+            imported.put(line.tenantId(), Carried.of(bill));
+        }
+
+        billRepository.saveAll(newBills);
+        billRollupService.refreshPeriods(periods);
+        return newBills.size();
+    }
+
+    private static Carried previousOf(Long tenantId, int periodKey, Map<Long, Carried> imported,
+            Map<Long, Carried> carried, Map<Integer, Map<Long, Carried>> previousBills) {
+        for (Carried candidate : new Carried[] { imported.get(tenantId), carried.get(tenantId) }) {
+            if (candidate != null && candidate.periodKey() == periodKey - 1) {
+                return candidate;
+            }
+        }
+        return previousBills.getOrDefault(periodKey - 1, Map.of()).get(tenantId);
+    }
+
+    private List<Bill> findBills(int periodKey, Set<Long> tenantIds) {
+        YearMonth period = MonthlyBillRollup.periodOf(periodKey);
+        return billRepository.findByBillMonthAndBillYearAndTenantIdIn(period.getMonthValue(), period.getYear(),
+                tenantIds);
+    }
+
+    private Bill toBill(ImportLine line, Carried previous) {
+        Bill bill = new Bill();
+        bill.setTenant(tenantRepository.getReferenceById(line.tenantId()));
+        bill.setBillYear(line.period().getYear());
+        bill.setBillMonth(line.period().getMonthValue());
+        bill.setElectricityKwhPreviousTenths(previous != null ? previous.electricityTenths() : 0);
+        bill.setElectricityKwhCurrentTenths(line.electricityTenths());
+        bill.setWaterM3PreviousTenths(previous != null ? previous.waterTenths() : 0);
+        bill.setWaterM3CurrentTenths(line.waterTenths());
+        bill.setRoomRent(orCarried(line.roomRent(), previous != null ? previous.roomRent() : 0));
+        bill.setTrashFee(orCarried(line.trashFee(), previous != null ? previous.trashFee() : 0));
+        bill.setWifiFee(orCarried(line.wifiFee(), previous != null ? previous.wifiFee() : 0));
+        String occupantName = line.occupantName() != null ? line.occupantName()
+                : previous != null && previous.occupantName() != null ? previous.occupantName() : line.tenantName();
+        bill.setOccupantName(occupantName);
+        return bill;
+    }
+
+    private static long orCarried(Long value, long carriedValue) {
+        return value != null ? value : carriedValue;
+    }
+
+    private static void addError(BillImportResultDTO result, int lineNumber, String message) {
+        addError(result, "Line " + lineNumber + ": " + message);
+    }
+
+    private static void addError(BillImportResultDTO result, String error) {
+        result.setErrorCount(result.getErrorCount() + 1);
+        if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+            result.getErrors().add(error);
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BillStatisticsDTO;
+import com.example.nhatromanagement.dto.DashboardSummaryDTO;
+import com.example.nhatromanagement.dto.MonthlyStatDTO;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.MonthlyBillRollupRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class BillRollupServiceImpl implements BillRollupService {
+
+    private final BillRepository billRepository;
+    private final MonthlyBillRollupRepository rollupRepository;
+
+    @Autowired
+    public BillRollupServiceImpl(BillRepository billRepository, MonthlyBillRollupRepository rollupRepository) {
+        this.billRepository = billRepository;
+        this.rollupRepository = rollupRepository;
+    }
+
+    /**
+     * Populates the rollup table on the first start after it was introduced, or
+     * after it was cleared by hand.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void rebuildIfEmpty() {
+        if (rollupRepository.count() == 0 && billRepository.count() > 0) {
+            rebuild();
+        }
+    }
+
+    @Override
+    @Transactional
+    public void refreshPeriod(int year, int month) {
+        // Make sure the row exists, then lock it so the aggregate below sees the
+        // bills committed by any concurrent writer of the same period. Two writers
+        // of a new period both get past the insert, the second one waits for the
+        // first to commit rather than failing on the unique period constraint.
+        rollupRepository.insertIfAbsent(year, month);
+        MonthlyBillRollup rollup = rollupRepository.findForUpdateByBillYearAndBillMonth(year, month)
+                .orElseThrow(() -> new IllegalStateException("No rollup row for " + month + "/" + year));
+        // Kept even when the period became empty, it is updated in place
+        rollup.copyTotalsFrom(billRepository.aggregateRollup(year, month)
+                .orElseGet(() -> MonthlyBillRollup.empty(year, month)));
+        rollup.markChanged();
+    }
+
+    @Override
+    @Transactional
+    public void refreshPeriods(Collection<YearMonth> periods) {
+        if (periods.isEmpty()) {
+            return;
+        }
+        // Same as refreshPeriod for every period, but with one locking read and one
+        // aggregate query however many periods changed. Rows are created and locked
+        // in period order, like concurrent refreshes of overlapping periods do.
+        Set<Integer> periodKeys = new TreeSet<>();
+        for (YearMonth period : periods) {
+            periodKeys.add(MonthlyBillRollup.periodKey(period));
+        }
+        for (int periodKey : periodKeys) {
+            YearMonth period = MonthlyBillRollup.periodOf(periodKey);
+            rollupRepository.insertIfAbsent(period.getYear(), period.getMonthValue());
+        }
+        // Aggregate only once the rows are locked, so a concurrent refresh of the
+        // same periods has committed and its bills are counted here
+        List<MonthlyBillRollup> rollups = rollupRepository.findForUpdateByPeriodKeyIn(periodKeys);
+        Map<Integer, MonthlyBillRollup> aggregates = byPeriodKey(
+                billRepository.aggregateRollupsByPeriodKeyIn(periodKeys));
+
+        for (MonthlyBillRollup rollup : rollups) {
+            MonthlyBillRollup aggregate = aggregates.get(periodKeyOf(rollup));
+            rollup.copyTotalsFrom(aggregate != null ? aggregate
+                    : MonthlyBillRollup.empty(rollup.getBillYear(), rollup.getBillMonth()));
+            rollup.markChanged();
+        }
+    }
+
+    private static Map<Integer, MonthlyBillRollup> byPeriodKey(List<MonthlyBillRollup> rollups) {
+        return rollups.stream().collect(Collectors.toMap(BillRollupServiceImpl::periodKeyOf, Function.identity()));
+    }
+
+    private static int periodKeyOf(MonthlyBillRollup rollup) {
+        return MonthlyBillRollup.periodKey(YearMonth.of(rollup.getBillYear(), rollup.getBillMonth()));
+    }
+
+    @Override
+    @Transactional
+    public int rebuild() {
+        List<MonthlyBillRollup> rollups = billRepository.aggregateRollups();
+        rollupRepository.deleteAllInBatch();
+        // New rows get new ids, so no page version from before the rebuild repeats
+        rollups.forEach(MonthlyBillRollup::markChanged);
+        rollupRepository.saveAll(rollups);
+        log.info("Rebuilt monthly bill rollup: {} billing period(s)", rollups.size());
+        return rollups.size();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public DashboardSummaryDTO getSummary() {
+        return rollupRepository.summarize();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Integer> getBilledYears() {
+        return rollupRepository.findBilledYears();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MonthlyStatDTO> getMonthlyStats(YearMonth from, YearMonth to) {
+        Map<YearMonth, MonthlyBillRollup> rollups = rollupRepository
+                .findPeriodRange(MonthlyBillRollup.periodKey(from), MonthlyBillRollup.periodKey(to)).stream()
+                .collect(Collectors.toMap(r -> YearMonth.of(r.getBillYear(), r.getBillMonth()), Function.identity()));
+
+        List<MonthlyStatDTO> monthlyStats = new ArrayList<>();
+        for (YearMonth period = from; !period.isAfter(to); period = period.plusMonths(1)) {
+            MonthlyBillRollup rollup = rollups.getOrDefault(period,
+                    MonthlyBillRollup.empty(period.getYear(), period.getMonthValue()));
+            monthlyStats.add(new MonthlyStatDTO(period.getMonthValue(), period.getYear(), rollup.getTotalRoomRent(),
+                    rollup.getTotalElectricityCost(), rollup.getTotalWaterCost(), rollup.getTotalAmount(),
+                    (int) rollup.getBillCount()));
+        }
+        return monthlyStats;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BillStatisticsDTO getStatistics(int month, int year) {
+        MonthlyBillRollup rollup = rollupRepository.findByBillYearAndBillMonth(year, month)
+                .orElseGet(() -> MonthlyBillRollup.empty(year, month));
+        return new BillStatisticsDTO(month, year, rollup.getTotalRoomRent(), rollup.getTotalElectricityCost(),
+                rollup.getTotalWaterCost(), rollup.getTotalTrashFee(), rollup.getTotalWifiFee(),
+                rollup.getTotalAmount(), (int) rollup.getBillCount());
+    }
+}
@@ -1,48 +1,127 @@
 package com.example.nhatromanagement.service.impl;
 
+import com.example.nhatromanagement.config.MetricsConfig;
+import com.example.nhatromanagement.dto.BillHistoryDTO;
+import com.example.nhatromanagement.dto.BulkBillResultDTO;
+import com.example.nhatromanagement.dto.BulkMeterReadingDTO;
+import com.example.nhatromanagement.dto.MeterReadingDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
 import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
 import com.example.nhatromanagement.model.Tenant;
 import com.example.nhatromanagement.repository.BillRepository;
 import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
 import com.example.nhatromanagement.service.BillService;
 import com.example.nhatromanagement.service.SettingService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class BillServiceImpl implements BillService {
 
+    // Largest page the bills list may request
+    private static final int MAX_PAGE_SIZE = 200;
+
+    // Newest billing period first, id as a stable tie-breaker
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Direction.DESC, "billYear", "billMonth", "id");
+
+    // Most bill ids bound to a single bulk statement
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    // A bulk entry racing another one is run once more to report the rooms concerned
+    private static final int BULK_CREATE_ATTEMPTS = 2;
+
     private final BillRepository billRepository;
     private final TenantRepository tenantRepository;
     private final SettingService settingService;
+    private final BillRollupService billRollupService;
+    private final TransactionTemplate transactionTemplate;
 
     @Autowired
     public BillServiceImpl(BillRepository billRepository, TenantRepository tenantRepository,
-            SettingService settingService) {
+            SettingService settingService, BillRollupService billRollupService,
+            PlatformTransactionManager transactionManager) {
         this.billRepository = billRepository;
         this.tenantRepository = tenantRepository;
         this.settingService = settingService;
+        this.billRollupService = billRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     @Override
-    @Transactional
     public Bill createBill(Long tenantId, int year, int month, double electricityKwhCurrent, double waterM3Current,
-            double trashFee, double wifiFee, double roomRent, String occupantName) {
-        Tenant tenant = tenantRepository.findById(tenantId)
-                .orElseThrow(() -> new IllegalArgumentException("Tenant not found with id: " + tenantId));
+            long trashFee, long wifiFee, long roomRent, String occupantName) {
+        // The unique period constraint rejects a second bill for the same month,
+        // flushing surfaces it even when two entries race each other
+        try {
+            return transactionTemplate.execute(status -> {
+                Bill newBill = newBill(findTenant(tenantId), year, month, null, electricityKwhCurrent,
+                        waterM3Current, trashFee, wifiFee, roomRent, occupantName);
+                Bill savedBill = billRepository.saveAndFlush(newBill);
+                billRollupService.refreshPeriod(year, month);
+                return savedBill;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (!isPeriodConflict(e)) {
+                throw e;
+            }
+        }
 
-        // Check if a bill for this tenant, month, and year already exists
-        Optional<Bill> existingBill = billRepository.findByTenantAndBillMonthAndBillYear(tenant, month, year);
-        if (existingBill.isPresent()) {
-            throw new IllegalStateException(
-                    "A bill already exists for tenant " + tenantId + " for " + month + "/" + year);
+        // The month is billed already, which is only allowed when the billing run
+        // left a draft to fill in. The failed insert aborted its transaction on
+        // PostgreSQL, so the existing bill is read in a new one rather than up
+        // front, which saves a query on every regular entry.
+        try {
+            return transactionTemplate.execute(status -> {
+                Tenant tenant = findTenant(tenantId);
+                Bill draft = billRepository.findByTenantAndBillMonthAndBillYear(tenant, month, year)
+                        .filter(bill -> Boolean.TRUE.equals(bill.getDraft()))
+                        .orElseThrow(() -> alreadyBilled(tenantId, month, year, null));
+                draft.completeDraft(newBill(tenant, year, month, draft, electricityKwhCurrent, waterM3Current,
+                        trashFee, wifiFee, roomRent, occupantName));
+                Bill savedBill = billRepository.saveAndFlush(draft);
+                billRollupService.refreshPeriod(year, month);
+                return savedBill;
+            });
+        } catch (OptimisticLockingFailureException e) {
+            // Someone else filled in the draft meanwhile
+            throw alreadyBilled(tenantId, month, year, e);
         }
+    }
+
+    private Tenant findTenant(Long tenantId) {
+        return tenantRepository.findById(tenantId)
+                .orElseThrow(() -> new IllegalArgumentException("Tenant not found with id: " + tenantId));
+    }
 
+    // A bill with its costs calculated, a draft supplies the opening readings when
+    // there is no bill for the month before
+    private Bill newBill(Tenant tenant, int year, int month, Bill draft, double electricityKwhCurrent,
+            double waterM3Current, long trashFee, long wifiFee, long roomRent, String occupantName) {
         Bill newBill = new Bill();
         newBill.setTenant(tenant);
         newBill.setBillYear(year);
@@ -51,9 +130,11 @@ public class BillServiceImpl implements BillService {
         // Get previous month's readings
         Optional<Bill> previousMonthBill = getLatestBillForTenantBefore(tenant, year, month);
 
-        newBill.setElectricityKwhPrevious(previousMonthBill.map(Bill::getElectricityKwhCurrent).orElse(0.0));
+        newBill.setElectricityKwhPrevious(previousMonthBill.map(Bill::getElectricityKwhCurrent)
+                .orElse(draft != null ? draft.getElectricityKwhPrevious() : 0.0));
         newBill.setElectricityKwhCurrent(electricityKwhCurrent);
-        newBill.setWaterM3Previous(previousMonthBill.map(Bill::getWaterM3Current).orElse(0.0));
+        newBill.setWaterM3Previous(previousMonthBill.map(Bill::getWaterM3Current)
+                .orElse(draft != null ? draft.getWaterM3Previous() : 0.0));
         newBill.setWaterM3Current(waterM3Current);
 
         newBill.setTrashFee(trashFee);
@@ -62,14 +143,165 @@ public class BillServiceImpl implements BillService {
         newBill.setOccupantName(occupantName);
 
         // Fetch dynamic prices
-        double electricityPrice = settingService.getDoubleSettingValue("ELECTRICITY_PRICE").orElse(0.0); // Default to
-                                                                                                         // 0.0 if not
-                                                                                                         // set
-        double waterPrice = settingService.getDoubleSettingValue("WATER_PRICE").orElse(0.0); // Default to 0.0 if not
-                                                                                             // set
+        PricingSnapshot pricing = settingService.getPricing();
+
+        newBill.calculateCosts(pricing.getElectricityPrice(), pricing.getWaterPrice());
+        return newBill;
+    }
+
+    private static IllegalStateException alreadyBilled(Long tenantId, int month, int year, RuntimeException cause) {
+        return new IllegalStateException("A bill already exists for tenant " + tenantId + " for " + month + "/"
+                + year, cause);
+    }
+
+    private Bill saveAndCheckPeriod(Bill bill, Long tenantId) {
+        try {
+            return billRepository.saveAndFlush(bill);
+        } catch (DataIntegrityViolationException e) {
+            if (!isPeriodConflict(e)) {
+                throw e;
+            }
+            throw alreadyBilled(tenantId, bill.getBillMonth(), bill.getBillYear(), e);
+        }
+    }
+
+    private static boolean isPeriodConflict(DataIntegrityViolationException e) {
+        String cause = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase(Locale.ROOT);
+        return cause.contains(Bill.UNIQUE_PERIOD_CONSTRAINT);
+    }
+
+    @Override
+    public BulkBillResultDTO createBills(BulkMeterReadingDTO bulkDTO) {
+        int year = bulkDTO.getBillYear();
+        int month = bulkDTO.getBillMonth();
+
+        List<MeterReadingDTO> readings = bulkDTO.getReadings().stream()
+                .filter(MeterReadingDTO::isSelected) // Skip unselected rooms
+                .filter(r -> r.getElectricityCurrent() != null && r.getWaterCurrent() != null) // Skip if no readings
+                .toList();
+        if (readings.isEmpty()) {
+            return new BulkBillResultDTO();
+        }
 
-        newBill.calculateCosts(electricityPrice, waterPrice);
-        return billRepository.save(newBill);
+        // When another user enters a bill for one of these rooms after they were
+        // checked, the failed insert aborts the whole transaction. The batch then
+        // runs again in a new one, whose check sees that bill and reports just
+        // that room, or fills it in if it is a billing-run draft.
+        for (int attempt = 1;; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> createBills(year, month, readings));
+            } catch (DataIntegrityViolationException e) {
+                if (!isPeriodConflict(e)) {
+                    throw e;
+                }
+                if (attempt == BULK_CREATE_ATTEMPTS) {
+                    throw enteredMeanwhile(month, year, e);
+                }
+            } catch (OptimisticLockingFailureException e) {
+                // Or one of the drafts was changed after it was loaded
+                if (attempt == BULK_CREATE_ATTEMPTS) {
+                    throw enteredMeanwhile(month, year, e);
+                }
+            }
+        }
+    }
+
+    private BulkBillResultDTO createBills(int year, int month, List<MeterReadingDTO> readings) {
+        BulkBillResultDTO result = new BulkBillResultDTO();
+
+        // Load everything the batch needs up front, once
+        Set<Long> tenantIds = new HashSet<>();
+        for (MeterReadingDTO reading : readings) {
+            tenantIds.add(reading.getTenantId());
+        }
+        Map<Long, Tenant> tenants = new HashMap<>();
+        for (Tenant tenant : tenantRepository.findAllById(tenantIds)) {
+            tenants.put(tenant.getId(), tenant);
+        }
+        // Drafts left by the billing run are filled in, any other bill blocks the room
+        Set<Long> billedTenantIds = new HashSet<>();
+        Map<Long, Bill> drafts = new HashMap<>();
+        for (Bill bill : billRepository.findByBillMonthAndBillYearAndTenantIdIn(month, year, tenantIds)) {
+            if (Boolean.TRUE.equals(bill.getDraft())) {
+                drafts.put(bill.getTenant().getId(), bill);
+            } else {
+                billedTenantIds.add(bill.getTenant().getId());
+            }
+        }
+        YearMonth previousBillingPeriod = YearMonth.of(year, month).minusMonths(1);
+        Map<Long, Bill> previousBills = new HashMap<>();
+        for (Bill bill : billRepository.findByBillMonthAndBillYearAndTenantIdIn(
+                previousBillingPeriod.getMonthValue(), previousBillingPeriod.getYear(), tenantIds)) {
+            previousBills.put(bill.getTenant().getId(), bill);
+        }
+        PricingSnapshot pricing = settingService.getPricing();
+
+        // Validate every room the same way createBill does, collecting failures per room
+        List<Bill> newBills = new ArrayList<>();
+        for (MeterReadingDTO reading : readings) {
+            Long tenantId = reading.getTenantId();
+            Tenant tenant = tenants.get(tenantId);
+            if (tenant == null) {
+                result.getErrors().add(reading.getTenantName() + ": Tenant not found with id: " + tenantId);
+                continue;
+            }
+            if (!billedTenantIds.add(tenantId)) {
+                result.getErrors().add(reading.getTenantName() + ": A bill already exists for tenant " + tenantId
+                        + " for " + month + "/" + year);
+                continue;
+            }
+
+            Bill newBill = new Bill();
+            newBill.setTenant(tenant);
+            newBill.setBillYear(year);
+            newBill.setBillMonth(month);
+
+            // A draft already carries the opening readings when there is no bill for the month before
+            Bill draft = drafts.get(tenantId);
+            Optional<Bill> previousMonthBill = Optional.ofNullable(previousBills.get(tenantId));
+            newBill.setElectricityKwhPrevious(previousMonthBill.map(Bill::getElectricityKwhCurrent)
+                    .orElse(draft != null ? draft.getElectricityKwhPrevious() : 0.0));
+            newBill.setElectricityKwhCurrent(reading.getElectricityCurrent());
+            newBill.setWaterM3Previous(previousMonthBill.map(Bill::getWaterM3Current)
+                    .orElse(draft != null ? draft.getWaterM3Previous() : 0.0));
+            newBill.setWaterM3Current(reading.getWaterCurrent());
+
+            newBill.setTrashFee(reading.getTrashFee());
+            newBill.setWifiFee(reading.getWifiFee());
+            newBill.setRoomRent(reading.getRoomRent());
+            newBill.setOccupantName(reading.getOccupantName());
+
+            try {
+                newBill.calculateCosts(pricing.getElectricityPrice(), pricing.getWaterPrice());
+            } catch (IllegalStateException e) {
+                billedTenantIds.remove(tenantId);
+                result.getErrors().add(reading.getTenantName() + ": " + e.getMessage());
+                continue;
+            }
+            if (draft != null) {
+                draft.completeDraft(newBill);
+                newBills.add(draft);
+            } else {
+                newBills.add(newBill);
+            }
+        }
+
+        // Sequence ids let Hibernate send these as batched inserts, see hibernate.jdbc.batch_size.
+        // Flushing here surfaces a bill entered meanwhile before the rollup is refreshed.
+        billRepository.saveAll(newBills);
+        billRepository.flush();
+        result.setSuccessCount(newBills.size());
+
+        if (!newBills.isEmpty()) {
+            billRollupService.refreshPeriod(year, month);
+        }
+        return result;
+    }
+
+    private static IllegalStateException enteredMeanwhile(int month, int year, RuntimeException cause) {
+        return new IllegalStateException("Bills for " + month + "/" + year
+                + " were entered by someone else meanwhile, nothing was saved. Reload the page and try again.",
+                cause);
     }
 
     private Optional<Bill> getLatestBillForTenantBefore(Tenant tenant, int year, int month) {
@@ -94,14 +326,10 @@ public class BillServiceImpl implements BillService {
     @Override
     @Transactional(readOnly = true)
     public List<Bill> getBillsByTenant(Long tenantId) {
-        Tenant tenant = tenantRepository.findById(tenantId)
-                .orElseThrow(() -> new IllegalArgumentException("Tenant not found with id: " + tenantId));
-        // This might be inefficient if a tenant has many bills. Consider pagination or
-        // specific queries.
-        // For now, let's assume it's fine. A dedicated repository method might be
-        // better.
-        return tenant.getBills(); // Assuming Tenant entity has a getBills() method from a @OneToMany mapping
-                                  // If not, we need to query BillRepository by tenant
+        if (!tenantRepository.existsById(tenantId)) {
+            throw new IllegalArgumentException("Tenant not found with id: " + tenantId);
+        }
+        return billRepository.findByTenantIdOrderByBillYearDescBillMonthDesc(tenantId, Pageable.unpaged());
     }
 
     @Override
@@ -121,6 +349,12 @@ public class BillServiceImpl implements BillService {
 
         Bill existingBill = billRepository.findById(billFromForm.getId())
                 .orElseThrow(() -> new IllegalArgumentException("Bill not found with id: " + billFromForm.getId()));
+        // Someone saved the bill since the form was opened. A save committed after
+        // this check still fails on the version column when flushing.
+        if (existingBill.getVersion() != billFromForm.getVersion()) {
+            throw new ObjectOptimisticLockingFailureException(Bill.class, billFromForm.getId());
+        }
+        YearMonth previousPeriod = YearMonth.of(existingBill.getBillYear(), existingBill.getBillMonth());
 
         // Update editable fields from the form data
         existingBill.setBillYear(billFromForm.getBillYear());
@@ -132,6 +366,8 @@ public class BillServiceImpl implements BillService {
         existingBill.setRoomRent(billFromForm.getRoomRent());
         existingBill.setOccupantName(billFromForm.getOccupantName());
         existingBill.setPaid(billFromForm.getPaid());
+        // Saving the readings of a draft from a billing run turns it into a real bill
+        existingBill.setDraft(false);
 
         // electricityKwhPrevious and waterM3Previous are typically not changed during
         // an edit
@@ -141,40 +377,75 @@ public class BillServiceImpl implements BillService {
         // The tenant association should also not change during a bill edit.
 
         // Fetch dynamic prices
-        double electricityPrice = settingService.getDoubleSettingValue("ELECTRICITY_PRICE").orElse(0.0); // Default to
-                                                                                                         // 0.0 if not
-                                                                                                         // set
-        double waterPrice = settingService.getDoubleSettingValue("WATER_PRICE").orElse(0.0); // Default to 0.0 if not
-                                                                                             // set
+        PricingSnapshot pricing = settingService.getPricing();
 
-        existingBill.calculateCosts(electricityPrice, waterPrice); // Recalculate based on potentially new current
+        existingBill.calculateCosts(pricing.getElectricityPrice(), pricing.getWaterPrice()); // Recalculate based on potentially new current
                                                                    // readings and fees
-        return billRepository.save(existingBill);
+        Bill savedBill = saveAndCheckPeriod(existingBill, existingBill.getTenant().getId());
+        // The billing period is editable, so both the old and the new period may change
+        billRollupService.refreshPeriods(List.of(previousPeriod,
+                YearMonth.of(savedBill.getBillYear(), savedBill.getBillMonth())));
+        return savedBill;
     }
 
     @Override
     @Transactional
     public void deleteBill(Long id) {
-        if (!billRepository.existsById(id)) {
-            throw new IllegalArgumentException("Bill not found with id: " + id);
-        }
-        billRepository.deleteById(id);
+        Bill bill = billRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Bill not found with id: " + id));
+        billRepository.delete(bill);
+        billRollupService.refreshPeriod(bill.getBillYear(), bill.getBillMonth());
     }
 
     @Override
     @Transactional
-    public void bulkUpdateStatus(List<Long> billIds, boolean isPaid) {
-        List<Bill> bills = billRepository.findAllById(billIds);
-        for (Bill bill : bills) {
-            bill.setPaid(isPaid);
+    public int bulkUpdateStatus(Map<Long, Long> versionsById, boolean isPaid) {
+        // One statement per version the bills were read at, usually only a few
+        Map<Long, List<Long>> idsByVersion = new HashMap<>();
+        versionsById.forEach((id, version) -> idsByVersion.computeIfAbsent(version, v -> new ArrayList<>()).add(id));
+        int updated = 0;
+        Set<YearMonth> periods = new HashSet<>();
+        for (Map.Entry<Long, List<Long>> entry : idsByVersion.entrySet()) {
+            for (List<Long> chunk : chunksOf(entry.getValue())) {
+                periods.addAll(periodsOf(chunk));
+                updated += billRepository.updatePaidByIdInAndVersion(chunk, entry.getKey(), isPaid);
+            }
         }
-        billRepository.saveAll(bills);
+        billRollupService.refreshPeriods(periods);
+        return updated;
     }
 
     @Override
     @Transactional
-    public void bulkDelete(List<Long> billIds) {
-        billRepository.deleteAllById(billIds);
+    public int bulkDelete(List<Long> billIds) {
+        int deleted = 0;
+        Set<YearMonth> periods = new HashSet<>();
+        for (List<Long> chunk : chunksOf(billIds)) {
+            periods.addAll(periodsOf(chunk));
+            deleted += billRepository.deleteByIdIn(chunk);
+        }
+        billRollupService.refreshPeriods(periods);
+        return deleted;
+    }
+
+    // Keeps each IN list well below the bind parameter limit of the driver
+    private static List<List<Long>> chunksOf(List<Long> billIds) {
+        List<Long> distinctIds = List.copyOf(new LinkedHashSet<>(billIds));
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < distinctIds.size(); from += ID_CHUNK_SIZE) {
+            chunks.add(distinctIds.subList(from, Math.min(from + ID_CHUNK_SIZE, distinctIds.size())));
+        }
+        return chunks;
+    }
+
+    private List<YearMonth> periodsOf(List<Long> billIds) {
+        return billRepository.findPeriodKeysByIdIn(billIds).stream().map(MonthlyBillRollup::periodOf).toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Bill> getRecentBills() {
+        return billRepository.findTop5ByOrderByBillYearDescBillMonthDescIdDesc();
     }
 
     @Override
@@ -187,108 +458,59 @@ public class BillServiceImpl implements BillService {
 
     @Override
     @Transactional(readOnly = true)
-    public com.example.nhatromanagement.dto.BillStatisticsDTO getStatistics(Integer month, Integer year) {
-        List<Bill> bills;
-
-        if (month != null && year != null) {
-            // Filter by specific month and year
-            bills = billRepository.findByBillMonthAndBillYear(month, year);
-        } else if (year != null) {
-            // Filter by year only (all months)
-            bills = billRepository.findByBillYear(year);
-        } else {
-            // No filter - get all bills
-            bills = billRepository.findAll();
-        }
-
-        com.example.nhatromanagement.dto.BillStatisticsDTO stats = new com.example.nhatromanagement.dto.BillStatisticsDTO();
-        stats.setMonth(month);
-        stats.setYear(year);
-        stats.setBillCount(bills.size());
-
-        double totalRoomRent = 0;
-        double totalElectricityCost = 0;
-        double totalWaterCost = 0;
-        double totalTrashFee = 0;
-        double totalWifiFee = 0;
-        double totalAmount = 0;
-
-        for (Bill bill : bills) {
-            totalRoomRent += bill.getRoomRent();
-            totalElectricityCost += bill.getElectricityCost();
-            totalWaterCost += bill.getWaterCost();
-            totalTrashFee += bill.getTrashFee();
-            totalWifiFee += bill.getWifiFee();
-            totalAmount += bill.getTotalAmount();
+    public Map<Long, Bill> getLatestBillsByTenant() {
+        Map<Long, Bill> latestBills = new HashMap<>();
+        for (Bill bill : billRepository.findLatestBillOfEachTenant()) {
+            latestBills.put(bill.getTenant().getId(), bill);
         }
+        return latestBills;
+    }
 
-        stats.setTotalRoomRent(totalRoomRent);
-        stats.setTotalElectricityCost(totalElectricityCost);
-        stats.setTotalWaterCost(totalWaterCost);
-        stats.setTotalTrashFee(totalTrashFee);
-        stats.setTotalWifiFee(totalWifiFee);
-        stats.setTotalAmount(totalAmount);
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<YearMonth> getLatestBillingPeriod() {
+        return billRepository.findLatestPeriodKey().map(MonthlyBillRollup::periodOf);
+    }
 
-        return stats;
+    @Override
+    @Transactional(readOnly = true)
+    public com.example.nhatromanagement.dto.BillStatisticsDTO getStatistics(Integer month, Integer year) {
+        return getStatistics(month, year, null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public com.example.nhatromanagement.dto.BillStatisticsDTO getStatistics(Integer month, Integer year,
             Long tenantId) {
-        List<Bill> bills;
+        com.example.nhatromanagement.dto.BillStatisticsDTO stats;
 
         if (tenantId != null) {
             // Filter by tenant
-            Tenant tenant = tenantRepository.findById(tenantId)
-                    .orElseThrow(() -> new IllegalArgumentException("Tenant not found with id: " + tenantId));
+            if (!tenantRepository.existsById(tenantId)) {
+                throw new IllegalArgumentException("Tenant not found with id: " + tenantId);
+            }
 
             if (month != null && year != null) {
-                bills = billRepository.findByTenantAndBillMonthAndBillYearOrderByBillMonthDesc(tenant, month, year);
+                stats = billRepository.aggregateStatisticsByTenantAndMonthAndYear(tenantId, month, year);
             } else if (year != null) {
-                bills = billRepository.findByTenantAndBillYear(tenant, year);
+                stats = billRepository.aggregateStatisticsByTenantAndYear(tenantId, year);
             } else {
-                bills = billRepository.findByTenant(tenant);
+                stats = billRepository.aggregateStatisticsByTenant(tenantId);
             }
         } else {
-            // No tenant filter - use existing logic
+            // No tenant filter
             if (month != null && year != null) {
-                bills = billRepository.findByBillMonthAndBillYear(month, year);
+                stats = billRepository.aggregateStatisticsByMonthAndYear(month, year);
             } else if (year != null) {
-                bills = billRepository.findByBillYear(year);
+                stats = billRepository.aggregateStatisticsByYear(year);
             } else {
-                bills = billRepository.findAll();
+                stats = billRepository.aggregateStatistics();
             }
         }
 
-        com.example.nhatromanagement.dto.BillStatisticsDTO stats = new com.example.nhatromanagement.dto.BillStatisticsDTO();
+        // The sums are computed by the database, only the filter needs to be echoed back
         stats.setMonth(month);
         stats.setYear(year);
-        stats.setBillCount(bills.size());
-
-        double totalRoomRent = 0;
-        double totalElectricityCost = 0;
-        double totalWaterCost = 0;
-        double totalTrashFee = 0;
-        double totalWifiFee = 0;
-        double totalAmount = 0;
-
-        for (Bill bill : bills) {
-            totalRoomRent += bill.getRoomRent();
-            totalElectricityCost += bill.getElectricityCost();
-            totalWaterCost += bill.getWaterCost();
-            totalTrashFee += bill.getTrashFee();
-            totalWifiFee += bill.getWifiFee();
-            totalAmount += bill.getTotalAmount();
-        }
-
-        stats.setTotalRoomRent(totalRoomRent);
-        stats.setTotalElectricityCost(totalElectricityCost);
-        stats.setTotalWaterCost(totalWaterCost);
-        stats.setTotalTrashFee(totalTrashFee);
-        stats.setTotalWifiFee(totalWifiFee);
-        stats.setTotalAmount(totalAmount);
-
         return stats;
     }
 
@@ -321,4 +543,45 @@ public class BillServiceImpl implements BillService {
     public java.util.List<Bill> getBillsByTenantAndMonthYear(Tenant tenant, int month, int year) {
         return billRepository.findByTenantAndBillMonthAndBillYearOrderByBillMonthDesc(tenant, month, year);
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<Bill> getBillsPage(Integer month, Integer year, Long tenantId, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.min(Math.max(size, 1), MAX_PAGE_SIZE),
+                NEWEST_FIRST);
+        if (tenantId != null && month != null && year != null) {
+            return billRepository.findByTenantIdAndBillMonthAndBillYear(tenantId, month, year, pageable);
+        } else if (tenantId != null && year != null) {
+            return billRepository.findByTenantIdAndBillYear(tenantId, year, pageable);
+        } else if (tenantId != null) {
+            return billRepository.findByTenantId(tenantId, pageable);
+        } else if (month != null && year != null) {
+            return billRepository.findByBillMonthAndBillYear(month, year, pageable);
+        } else if (year != null) {
+            return billRepository.findByBillYear(year, pageable);
+        }
+        return billRepository.findAll(pageable);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BillHistoryDTO getBillHistory(Long tenantId, YearMonth before, int size) {
+        int limit = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+        // One extra row tells whether an older page exists, no count query needed
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<Bill> bills = before == null
+                ? billRepository.findByTenantIdOrderByBillYearDescBillMonthDesc(tenantId, pageable)
+                : billRepository.findByTenantIdBefore(tenantId, before.getYear(), before.getMonthValue(), pageable);
+        if (bills.size() <= limit) {
+            return new BillHistoryDTO(bills, null);
+        }
+        Bill last = bills.get(limit - 1);
+        return new BillHistoryDTO(new ArrayList<>(bills.subList(0, limit)),
+                YearMonth.of(last.getBillYear(), last.getBillMonth()));
+    }
+
+    @Override
+    public List<Integer> getBillYears() {
+        return billRollupService.getBilledYears();
+    }
 }
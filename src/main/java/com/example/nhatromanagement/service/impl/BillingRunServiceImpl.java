@@ -0,0 +1,228 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.config.ExecutorConfig;
+import com.example.nhatromanagement.dto.BillingRunDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import com.example.nhatromanagement.service.BillingRunService;
+import com.example.nhatromanagement.service.SettingService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class BillingRunServiceImpl implements BillingRunService {
+
+    private final TenantRepository tenantRepository;
+    private final BillRepository billRepository;
+    private final SettingService settingService;
+    private final BillRollupService billRollupService;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskExecutor billingRunExecutor;
+    private final int chunkSize;
+
+    // Progress of the latest run, replaced when the next run starts
+    private final AtomicReference<BillingRunDTO> latestRun = new AtomicReference<>();
+
+    @Autowired
+    public BillingRunServiceImpl(TenantRepository tenantRepository, BillRepository billRepository,
+            SettingService settingService, BillRollupService billRollupService,
+            PlatformTransactionManager transactionManager,
+            @Qualifier(ExecutorConfig.BILLING_RUN_EXECUTOR) TaskExecutor billingRunExecutor,
+            @Value("${app.billing.run-chunk-size:200}") int chunkSize) {
+        this.tenantRepository = tenantRepository;
+        this.billRepository = billRepository;
+        this.settingService = settingService;
+        this.billRollupService = billRollupService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.billingRunExecutor = billingRunExecutor;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Close the month that just ended, see app.billing.run-cron. Off unless a cron
+     * is configured, "-" disables it.
+     */
+    @Scheduled(cron = "${app.billing.run-cron:-}")
+    public void closePreviousMonth() {
+        YearMonth period = YearMonth.now().minusMonths(1);
+        try {
+            startRun(period);
+        } catch (IllegalStateException e) {
+            log.warn("Scheduled billing run for {} skipped: {}", period, e.getMessage());
+        }
+    }
+
+    @Override
+    public BillingRunDTO startRun(YearMonth period) {
+        BillingRunDTO previous = latestRun.get();
+        if (previous != null && snapshot(previous).getStatus() == BillingRunDTO.Status.RUNNING) {
+            throw new IllegalStateException("A billing run for " + previous.getBillMonth() + "/"
+                    + previous.getBillYear() + " is still in progress");
+        }
+
+        List<Long> tenantIds = tenantRepository.findIdsWithoutBillFor(period.getYear(), period.getMonthValue());
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < tenantIds.size(); from += chunkSize) {
+            chunks.add(tenantIds.subList(from, Math.min(from + chunkSize, tenantIds.size())));
+        }
+
+        BillingRunDTO run = new BillingRunDTO();
+        run.setBillYear(period.getYear());
+        run.setBillMonth(period.getMonthValue());
+        run.setStatus(BillingRunDTO.Status.RUNNING);
+        run.setTenantCount(tenantIds.size());
+        run.setChunkCount(chunks.size());
+        run.setStartedAt(LocalDateTime.now());
+        if (!latestRun.compareAndSet(previous, run)) {
+            throw new IllegalStateException("Another billing run was started at the same time");
+        }
+        log.info("Billing run for {} started: {} room(s) in {} chunk(s)", period, tenantIds.size(), chunks.size());
+
+        // Every chunk prices its drafts the same way, whatever is saved meanwhile
+        PricingSnapshot pricing = settingService.getPricing();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<Long> chunk : chunks) {
+            CompletableFuture<Void> future;
+            try {
+                future = CompletableFuture.runAsync(() -> createDrafts(run, period, chunk, pricing),
+                        billingRunExecutor);
+            } catch (RuntimeException e) {
+                // Queue full, the rooms keep no bill and show up as failed
+                future = CompletableFuture.failedFuture(e);
+            }
+            futures.add(future.exceptionally(e -> {
+                chunkFailed(run, chunk, e);
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, e) -> finish(run, period));
+        return snapshot(run);
+    }
+
+    @Override
+    public Optional<BillingRunDTO> getLatestRun() {
+        return Optional.ofNullable(latestRun.get()).map(this::snapshot);
+    }
+
+    private void createDrafts(BillingRunDTO run, YearMonth period, List<Long> tenantIds, PricingSnapshot pricing) {
+        // One transaction per chunk, a failing chunk does not undo the others
+        Integer created = transactionTemplate.execute(status -> {
+            Map<Long, Bill> latestBills = new HashMap<>();
+            for (Bill bill : billRepository.findLatestBillBeforePeriodByTenantIdIn(tenantIds,
+                    MonthlyBillRollup.periodKey(period))) {
+                latestBills.put(bill.getTenant().getId(), bill);
+            }
+
+            List<Bill> drafts = new ArrayList<>();
+            for (Tenant tenant : tenantRepository.findAllById(tenantIds)) {
+                drafts.add(draftFor(tenant, latestBills.get(tenant.getId()), period, pricing));
+            }
+            billRepository.saveAll(drafts);
+            // A bill entered for one of these rooms meanwhile fails the chunk here
+            billRepository.flush();
+            // Drafts add nothing to the totals, but the period's change marker moves
+            // with each chunk's commit, so list and statistics ETags do not go stale
+            billRollupService.refreshPeriod(period.getYear(), period.getMonthValue());
+            return drafts.size();
+        });
+        synchronized (run) {
+            run.setFinishedChunkCount(run.getFinishedChunkCount() + 1);
+            run.setCreatedCount(run.getCreatedCount() + (created != null ? created : 0));
+        }
+    }
+
+    /**
+     * Carries the latest readings forward as both previous and current, so the
+     * draft has no usage until its readings are entered, along with the rent and
+     * fees the quick entry form would prefill.
+     */
+    private static Bill draftFor(Tenant tenant, Bill latestBill, YearMonth period, PricingSnapshot pricing) {
+        Bill draft = new Bill();
+        draft.setTenant(tenant);
+        draft.setBillYear(period.getYear());
+        draft.setBillMonth(period.getMonthValue());
+        draft.setDraft(true);
+        if (latestBill != null) {
+            draft.setElectricityKwhPreviousTenths(latestBill.getElectricityKwhCurrentTenths());
+            draft.setElectricityKwhCurrentTenths(latestBill.getElectricityKwhCurrentTenths());
+            draft.setWaterM3PreviousTenths(latestBill.getWaterM3CurrentTenths());
+            draft.setWaterM3CurrentTenths(latestBill.getWaterM3CurrentTenths());
+            draft.setRoomRent(latestBill.getRoomRent());
+            draft.setTrashFee(latestBill.getTrashFee());
+            draft.setWifiFee(latestBill.getWifiFee());
+            draft.setOccupantName(latestBill.getOccupantName());
+        } else {
+            draft.setOccupantName(tenant.getName());
+        }
+        draft.calculateCosts(pricing.getElectricityPrice(), pricing.getWaterPrice());
+        return draft;
+    }
+
+    private void chunkFailed(BillingRunDTO run, List<Long> tenantIds, Throwable e) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(e);
+        String error = "Rooms " + tenantIds.get(0) + "-" + tenantIds.get(tenantIds.size() - 1) + ": "
+                + cause.getMessage();
+        log.warn("Billing run for {}/{} failed a chunk. {}", run.getBillMonth(), run.getBillYear(), error);
+        synchronized (run) {
+            run.setFinishedChunkCount(run.getFinishedChunkCount() + 1);
+            run.setFailedCount(run.getFailedCount() + tenantIds.size());
+            run.getErrors().add(error);
+        }
+    }
+
+    private void finish(BillingRunDTO run, YearMonth period) {
+        // Chunks that committed refreshed the rollup themselves, refresh it once more
+        // when some failed so pages cached during the run are revalidated
+        if (run.getFailedCount() > 0) {
+            try {
+                billRollupService.refreshPeriod(period.getYear(), period.getMonthValue());
+            } catch (RuntimeException e) {
+                log.warn("Error refreshing the rollup of {} after a billing run", period, e);
+                synchronized (run) {
+                    run.getErrors().add("Dashboard statistics: " + e.getMessage()
+                            + ", rebuild them from the settings page");
+                }
+            }
+        }
+        synchronized (run) {
+            run.setFinishedAt(LocalDateTime.now());
+            run.setStatus(run.getErrors().isEmpty() ? BillingRunDTO.Status.COMPLETED
+                    : BillingRunDTO.Status.COMPLETED_WITH_ERRORS);
+        }
+        log.info("Billing run for {} finished: {} draft(s) created, {} room(s) failed", period,
+                run.getCreatedCount(), run.getFailedCount());
+    }
+
+    private BillingRunDTO snapshot(BillingRunDTO run) {
+        synchronized (run) {
+            return new BillingRunDTO(run.getBillYear(), run.getBillMonth(), run.getStatus(), run.getTenantCount(),
+                    run.getChunkCount(), run.getFinishedChunkCount(), run.getCreatedCount(), run.getFailedCount(),
+                    new ArrayList<>(run.getErrors()), run.getStartedAt(), run.getFinishedAt());
+        }
+    }
+}
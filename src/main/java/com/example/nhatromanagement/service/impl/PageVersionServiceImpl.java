@@ -0,0 +1,54 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BillVersionDTO;
+import com.example.nhatromanagement.dto.ChangeMarkerDTO;
+import com.example.nhatromanagement.dto.PageVersionDTO;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.MonthlyBillRollupRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.PageVersionService;
+import com.example.nhatromanagement.service.SettingService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+@Service
+public class PageVersionServiceImpl implements PageVersionService {
+
+    private final BillRepository billRepository;
+    private final MonthlyBillRollupRepository rollupRepository;
+    private final TenantRepository tenantRepository;
+    private final SettingService settingService;
+
+    @Autowired
+    public PageVersionServiceImpl(BillRepository billRepository, MonthlyBillRollupRepository rollupRepository,
+            TenantRepository tenantRepository, SettingService settingService) {
+        this.billRepository = billRepository;
+        this.rollupRepository = rollupRepository;
+        this.tenantRepository = tenantRepository;
+        this.settingService = settingService;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<PageVersionDTO> getBillVersion(Long billId) {
+        Optional<BillVersionDTO> version = billRepository.findVersionById(billId);
+        if (version.isEmpty()) {
+            return Optional.empty();
+        }
+        // The unit prices come from memory, see SettingService.getPricing
+        String tag = "b" + billId + "." + version.get().getBillVersion() + "." + version.get().getTenantVersion()
+                + "-p" + Integer.toHexString(settingService.getPricing().hashCode());
+        return Optional.of(new PageVersionDTO(tag, version.get().getPeriodUpdatedAt()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PageVersionDTO getBillsVersion() {
+        ChangeMarkerDTO rollups = rollupRepository.findChangeMarker();
+        ChangeMarkerDTO tenants = tenantRepository.findChangeMarker();
+        return new PageVersionDTO("r" + rollups.toTag() + "-t" + tenants.toTag(), rollups.getLastModified());
+    }
+}
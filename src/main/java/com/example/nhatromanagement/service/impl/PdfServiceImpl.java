@@ -1,34 +1,115 @@
 package com.example.nhatromanagement.service.impl;
 
+import com.example.nhatromanagement.config.MetricsConfig;
+import com.example.nhatromanagement.dto.PricingSnapshot;
 import com.example.nhatromanagement.model.Bill;
 import com.example.nhatromanagement.service.PdfService;
+import com.example.nhatromanagement.service.SettingService;
+import com.lowagie.text.DocumentException;
+import com.lowagie.text.pdf.BaseFont;
+import io.micrometer.core.annotation.Timed;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.MessageSource;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StreamUtils;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
+import org.xhtmlrenderer.pdf.ITextOutputDevice;
 import org.xhtmlrenderer.pdf.ITextRenderer;
+import org.xhtmlrenderer.pdf.ITextUserAgent;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
+@Slf4j
 @Service
 public class PdfServiceImpl implements PdfService {
 
+    private static final String FONT_LOCATION = "classpath*:fonts/*.ttf";
+    private static final String IMAGE_LOCATION = "classpath*:static/images/*";
+
     private final TemplateEngine templateEngine;
     private final MessageSource messageSource;
+    private final SettingService settingService;
+
+    // Loaded once at startup and shared by every renderer
+    private final List<String> fontPaths;
+    private final Map<String, byte[]> images;
+
+    // ITextRenderer is not thread-safe, so each render borrows one, along with its
+    // registered fonts and decoded images, and hands it back when done. At most
+    // app.pdf.renderer-pool-size idle renderers are kept, a render finding none
+    // idle creates its own.
+    private final BlockingQueue<ITextRenderer> renderers;
 
     @Autowired
-    public PdfServiceImpl(TemplateEngine templateEngine, MessageSource messageSource) {
+    public PdfServiceImpl(TemplateEngine templateEngine, MessageSource messageSource,
+            SettingService settingService,
+            @Value("${app.pdf.renderer-pool-size:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+            int rendererPoolSize) {
         this.templateEngine = templateEngine;
         this.messageSource = messageSource;
+        this.settingService = settingService;
+        this.renderers = new ArrayBlockingQueue<>(rendererPoolSize);
+
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
+        try {
+            this.fontPaths = extractFonts(resolver.getResources(FONT_LOCATION));
+            this.images = readImages(resolver.getResources(IMAGE_LOCATION));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error loading PDF fonts and images", e);
+        }
+        log.info("PDF rendering uses {} font(s) and {} image(s)", fontPaths.size(), images.size());
     }
 
+    // The render timer is on the public methods only, which is where the proxy
+    // applies it. None of them calls another, they all go through render, so every
+    // PDF is timed exactly once.
     @Override
+    @Timed(MetricsConfig.PDF_RENDER_TIMER)
     public ByteArrayOutputStream generateBillPdf(Bill bill) throws Exception {
-        Locale locale = LocaleContextHolder.getLocale();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        render(bill, LocaleContextHolder.getLocale(), outputStream);
+        return outputStream;
+    }
+
+    @Override
+    @Timed(MetricsConfig.PDF_RENDER_TIMER)
+    public ByteArrayOutputStream generateBillPdf(Bill bill, Locale locale) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        render(bill, locale, outputStream);
+        return outputStream;
+    }
+
+    @Override
+    @Timed(MetricsConfig.PDF_RENDER_TIMER)
+    public void writeBillPdf(Bill bill, Locale locale, OutputStream out) throws Exception {
+        render(bill, locale, out);
+    }
+
+    private void render(Bill bill, Locale locale, OutputStream out) throws Exception {
         Context context = new Context(locale);
         context.setVariable("bill", bill);
         context.setVariable("messageSource", messageSource); // Pass messageSource to template
@@ -40,6 +121,12 @@ public class PdfServiceImpl implements PdfService {
         // For formatting dates and numbers within the PDF template if needed
         DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss", locale);
         context.setVariable("dateFormatter", dateFormatter);
+        context.setVariable("generatedAt", LocalDateTime.now());
+
+        // Unit prices shown next to the electricity and water costs
+        PricingSnapshot pricing = settingService.getPricing();
+        context.setVariable("electricityPrice", pricing.getElectricityPrice());
+        context.setVariable("waterPrice", pricing.getWaterPrice());
 
         // Example of resolving a title message to pass to the context
         // The template can also resolve messages itself using #{...}
@@ -49,14 +136,91 @@ public class PdfServiceImpl implements PdfService {
 
         String htmlContent = templateEngine.process("bills/pdf_template", context);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        ITextRenderer renderer = new ITextRenderer();
-        String baseUrl = new java.io.File("src/main/resources/static/images/").getAbsoluteFile().toURI().toString();
-        renderer.setDocumentFromString(htmlContent, baseUrl);
+        ITextRenderer renderer = renderers.poll();
+        if (renderer == null) {
+            renderer = createRenderer();
+        }
+        renderer.setDocumentFromString(htmlContent);
         renderer.layout();
-        renderer.createPDF(outputStream);
-        outputStream.close();
+        // The PDF writer closes its stream when done, the caller owns this one
+        renderer.createPDF(StreamUtils.nonClosing(out));
+        // Only handed back after a clean render, and dropped when the pool is full
+        renderers.offer(renderer);
+    }
 
-        return outputStream;
+    private ITextRenderer createRenderer() {
+        ITextOutputDevice outputDevice = new ITextOutputDevice(ITextRenderer.DEFAULT_DOTS_PER_POINT);
+        ITextRenderer renderer = new ITextRenderer(ITextRenderer.DEFAULT_DOTS_PER_POINT,
+                ITextRenderer.DEFAULT_DOTS_PER_PIXEL, outputDevice, new BundledResourceUserAgent(outputDevice));
+        try {
+            for (String fontPath : fontPaths) {
+                renderer.getFontResolver().addFont(fontPath, BaseFont.IDENTITY_H, true);
+            }
+        } catch (DocumentException | IOException e) {
+            throw new IllegalStateException("Error registering PDF fonts", e);
+        }
+        return renderer;
+    }
+
+    /**
+     * Copies the bundled fonts to a temporary directory, the PDF library only
+     * registers fonts from file paths.
+     */
+    private static List<String> extractFonts(Resource[] fonts) throws IOException {
+        List<String> paths = new ArrayList<>();
+        if (fonts.length == 0) {
+            return paths;
+        }
+        Path directory = Files.createTempDirectory("pdf-fonts");
+        directory.toFile().deleteOnExit();
+        for (Resource font : fonts) {
+            Path target = directory.resolve(font.getFilename());
+            try (InputStream in = font.getInputStream()) {
+                Files.copy(in, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            target.toFile().deleteOnExit();
+            paths.add(target.toString());
+        }
+        return paths;
+    }
+
+    private static Map<String, byte[]> readImages(Resource[] resources) throws IOException {
+        Map<String, byte[]> images = new HashMap<>();
+        for (Resource resource : resources) {
+            if (resource.isReadable() && resource.getFilename() != null) {
+                try (InputStream in = resource.getInputStream()) {
+                    images.put(resource.getFilename(), in.readAllBytes());
+                }
+            }
+        }
+        return images;
+    }
+
+    /**
+     * Serves images referenced by file name (such as the payment QR code) from
+     * memory instead of resolving them against the file system.
+     */
+    private class BundledResourceUserAgent extends ITextUserAgent {
+
+        BundledResourceUserAgent(ITextOutputDevice outputDevice) {
+            super(outputDevice);
+        }
+
+        @Override
+        public String resolveURI(String uri) {
+            if (uri != null && images.containsKey(uri)) {
+                return uri;
+            }
+            return super.resolveURI(uri);
+        }
+
+        @Override
+        protected InputStream resolveAndOpenStream(String uri) {
+            byte[] image = uri != null ? images.get(uri) : null;
+            if (image != null) {
+                return new ByteArrayInputStream(image);
+            }
+            return super.resolveAndOpenStream(uri);
+        }
     }
 }
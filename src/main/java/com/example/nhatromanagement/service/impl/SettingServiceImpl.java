@@ -1,18 +1,29 @@
 package com.example.nhatromanagement.service.impl;
 
+import com.example.nhatromanagement.config.MetricsConfig;
+import com.example.nhatromanagement.dto.PricingSnapshot;
 import com.example.nhatromanagement.model.Setting;
 import com.example.nhatromanagement.repository.SettingRepository;
 import com.example.nhatromanagement.service.SettingService;
+import io.micrometer.core.annotation.Timed;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class SettingServiceImpl implements SettingService {
 
@@ -28,6 +39,9 @@ public class SettingServiceImpl implements SettingService {
 
     private final SettingRepository settingRepository;
 
+    // Loaded on first use and replaced after every committed settings change
+    private final AtomicReference<PricingSnapshot> pricing = new AtomicReference<>();
+
     @Autowired
     public SettingServiceImpl(SettingRepository settingRepository) {
         this.settingRepository = settingRepository;
@@ -69,6 +83,60 @@ public class SettingServiceImpl implements SettingService {
         });
     }
 
+    @Override
+    public PricingSnapshot getPricing() {
+        PricingSnapshot current = pricing.get();
+        if (current == null) {
+            // Only install the loaded snapshot if a settings change has not done so meanwhile
+            pricing.compareAndSet(null, loadPricing());
+            current = pricing.get();
+        }
+        return current;
+    }
+
+    private PricingSnapshot loadPricing() {
+        Map<String, String> values = new HashMap<>();
+        for (Setting setting : settingRepository.findAll()) {
+            values.put(setting.getSettingKey(), setting.getSettingValue());
+        }
+        return new PricingSnapshot(
+                parsePrice(values, ELECTRICITY_PRICE_KEY, 0L),
+                parsePrice(values, WATER_PRICE_KEY, 0L),
+                parsePrice(values, TRASH_FEE_KEY, Long.parseLong(DEFAULT_TRASH_FEE)),
+                parsePrice(values, WIFI_FEE_KEY, Long.parseLong(DEFAULT_WIFI_FEE)));
+    }
+
+    private static long parsePrice(Map<String, String> values, String key, long defaultValue) {
+        String value = values.get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            // Prices are whole VND, a value saved as "3500.0" is still accepted
+            return new BigDecimal(value.trim()).setScale(0, RoundingMode.HALF_UP).longValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            log.warn("Error parsing price value for setting key '{}': {}", key, value);
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Swaps in a freshly loaded snapshot once the current transaction commits, so
+     * readers never see prices that could still be rolled back.
+     */
+    private void refreshPricingAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pricing.set(loadPricing());
+                }
+            });
+        } else {
+            pricing.set(loadPricing());
+        }
+    }
+
     @Override
     @Transactional
     public void saveSetting(String key, String value, String description) {
@@ -79,12 +147,14 @@ public class SettingServiceImpl implements SettingService {
             setting.setDescription(description);
         }
         settingRepository.save(setting);
+        refreshPricingAfterCommit();
     }
 
     @Override
     @Transactional
     public void saveSetting(Setting setting) {
         settingRepository.save(setting);
+        refreshPricingAfterCommit();
     }
 
     @Override
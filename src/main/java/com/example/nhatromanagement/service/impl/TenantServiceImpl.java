@@ -1,8 +1,14 @@
 package com.example.nhatromanagement.service.impl;
 
+import com.example.nhatromanagement.config.MetricsConfig;
+import com.example.nhatromanagement.dto.TenantDeletionResultDTO;
+import com.example.nhatromanagement.model.MonthlyBillRollup;
 import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
 import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
 import com.example.nhatromanagement.service.TenantService;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -10,14 +16,20 @@ import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
+@Timed(MetricsConfig.SERVICE_TIMER)
 @Service
 public class TenantServiceImpl implements TenantService {
 
     private final TenantRepository tenantRepository;
+    private final BillRepository billRepository;
+    private final BillRollupService billRollupService;
 
     @Autowired
-    public TenantServiceImpl(TenantRepository tenantRepository) {
+    public TenantServiceImpl(TenantRepository tenantRepository, BillRepository billRepository,
+            BillRollupService billRollupService) {
         this.tenantRepository = tenantRepository;
+        this.billRepository = billRepository;
+        this.billRollupService = billRollupService;
     }
 
     @Override
@@ -62,6 +74,12 @@ public class TenantServiceImpl implements TenantService {
         return tenantRepository.findAll();
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public long countTenants() {
+        return tenantRepository.count();
+    }
+
     @Override
     @Transactional
     public Tenant updateTenantName(Long id, String newName) {
@@ -76,13 +94,17 @@ public class TenantServiceImpl implements TenantService {
 
     @Override
     @Transactional
-    public void deleteTenant(Long id) {
-        Tenant tenant = tenantRepository.findById(id)
-            .orElseThrow(() -> new IllegalArgumentException("Tenant not found with id: " + id));
-        // Consider implications: what happens to bills if a tenant is deleted?
-        // For now, simple deletion. Could add logic to disallow deletion if bills exist,
-        // or orphan/delete bills accordingly. We might need to delete associated bills first or set tenant_id to null if allowed.
-        // For now, we'll assume deletion cascades or is handled manually if foreign key constraints exist.
-        tenantRepository.delete(tenant);
+    public TenantDeletionResultDTO deleteTenant(Long id, boolean archiveBills) {
+        if (!tenantRepository.existsById(id)) {
+            throw new IllegalArgumentException("Tenant not found with id: " + id);
+        }
+        // Bulk statements instead of the Tenant.bills cascade, which would load and
+        // delete the bills one by one
+        List<Integer> periodKeys = billRepository.findPeriodKeysByTenantId(id);
+        int archived = archiveBills ? billRepository.archiveByTenantId(id) : 0;
+        int deleted = billRepository.deleteByTenantId(id);
+        tenantRepository.deleteAllByIdInBatch(List.of(id));
+        billRollupService.refreshPeriods(periodKeys.stream().map(MonthlyBillRollup::periodOf).toList());
+        return new TenantDeletionResultDTO(deleted, archived);
     }
 }
@@ -1,40 +1,62 @@
 package com.example.nhatromanagement.controller;
 
+import com.example.nhatromanagement.dto.BillHistoryDTO;
+import com.example.nhatromanagement.dto.PageVersionDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
 import com.example.nhatromanagement.model.Bill;
 import com.example.nhatromanagement.model.Tenant;
 import com.example.nhatromanagement.service.BillService;
+import com.example.nhatromanagement.service.PageVersionService;
 import com.example.nhatromanagement.service.SettingService;
 import com.example.nhatromanagement.service.TenantService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.context.MessageSource;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.time.Instant;
+import java.time.YearMonth;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.model;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 class BillControllerTest {
 
     private BillService billService;
+    private TenantService tenantService;
+    private PageVersionService pageVersionService;
     private MockMvc mockMvc;
 
     @BeforeEach
     void setUp() {
         billService = Mockito.mock(BillService.class);
-        TenantService tenantService = Mockito.mock(TenantService.class);
+        tenantService = Mockito.mock(TenantService.class);
         SettingService settingService = Mockito.mock(SettingService.class);
         MessageSource messageSource = Mockito.mock(MessageSource.class);
+        pageVersionService = Mockito.mock(PageVersionService.class);
+        when(pageVersionService.getBillsVersion()).thenReturn(new PageVersionDTO("t", null));
 
         when(messageSource.getMessage(anyString(), any(), any(Locale.class))).thenAnswer(invocation -> {
             String code = invocation.getArgument(0, String.class);
@@ -44,10 +66,25 @@ class BillControllerTest {
             if ("success.bill.deleted".equals(code)) {
                 return "Bill deleted";
             }
+            if ("error.bill.conflict".equals(code)) {
+                return "Bill changed meanwhile";
+            }
+            if ("success.bill.bulk.paid".equals(code)) {
+                return "Paid " + invocation.getArgument(1, Object[].class)[0];
+            }
+            if ("error.bill.bulk.conflict".equals(code)) {
+                return "Skipped " + invocation.getArgument(1, Object[].class)[0];
+            }
+            if ("success.bill.bulk.deleted".equals(code)) {
+                return "Deleted " + invocation.getArgument(1, Object[].class)[0];
+            }
             return code;
         });
 
-        BillController controller = new BillController(billService, tenantService, messageSource, settingService);
+        when(settingService.getPricing()).thenReturn(new PricingSnapshot(3000, 13000, 20000, 50000));
+
+        BillController controller = new BillController(billService, tenantService, messageSource, settingService,
+                pageVersionService);
         mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
     }
 
@@ -79,4 +116,119 @@ class BillControllerTest {
                 .andExpect(redirectedUrl("/bills"))
                 .andExpect(flash().attribute("errorMessage", "Bill not found"));
     }
+
+    @Test
+    void listAllBills_rendersRequestedPageAndYearsFromService() throws Exception {
+        Tenant tenant = new Tenant();
+        tenant.setId(42L);
+        Bill bill = new Bill();
+        bill.setId(7L);
+        bill.setTenant(tenant);
+
+        when(billService.getBillsPage(null, 2025, null, 2, 20))
+                .thenReturn(new PageImpl<>(List.of(bill), PageRequest.of(2, 20), 41));
+        when(billService.getBillYears()).thenReturn(List.of(2025, 2024));
+
+        mockMvc.perform(get("/bills").param("year", "2025").param("page", "2").param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("bills", List.of(bill)))
+                .andExpect(model().attribute("years", List.of(2025, 2024)));
+
+        verify(billService, Mockito.never()).getAllBills();
+    }
+
+    @Test
+    void viewBill_answersNotModifiedForUnchangedBillWithoutLoadingIt() throws Exception {
+        when(pageVersionService.getBillVersion(7L))
+                .thenReturn(Optional.of(new PageVersionDTO("b7.3.1", Instant.parse("2025-06-01T00:00:00Z"))));
+
+        MvcResult first = mockMvc.perform(get("/bills/7"))
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andReturn();
+        String etag = first.getResponse().getHeader("ETag");
+
+        Mockito.clearInvocations(billService);
+        mockMvc.perform(get("/bills/7").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+        Mockito.verifyNoInteractions(billService);
+
+        // Another version of the bill renders again
+        when(pageVersionService.getBillVersion(7L))
+                .thenReturn(Optional.of(new PageVersionDTO("b7.4.1", Instant.parse("2025-06-01T00:00:00Z"))));
+        mockMvc.perform(get("/bills/7").header("If-None-Match", etag))
+                .andExpect(status().is3xxRedirection());
+    }
+
+    @Test
+    void saveBill_whenEditedMeanwhileReopensFormWithCurrentValues() throws Exception {
+        Bill existing = new Bill();
+        existing.setId(7L);
+        existing.setVersion(4);
+        when(billService.getBillById(7L)).thenReturn(Optional.of(existing));
+        when(billService.updateBill(any(Bill.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Bill.class, 7L));
+
+        mockMvc.perform(post("/bills/save").param("id", "7").param("version", "3").param("tenant.id", "42")
+                .param("billYear", "2025").param("billMonth", "6"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/bills/edit/7"))
+                .andExpect(flash().attribute("errorMessage", "Bill changed meanwhile"))
+                .andExpect(flash().attributeCount(1));
+    }
+
+    @Test
+    void bulkDelete_reportsNumberOfBillsActuallyDeleted() throws Exception {
+        when(billService.bulkDelete(List.of(1L, 2L, 3L))).thenReturn(2);
+
+        mockMvc.perform(post("/bills/bulk-delete").param("billIds", "1", "2", "3"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/bills"))
+                .andExpect(flash().attribute("successMessage", "Deleted 2"));
+    }
+
+    @Test
+    void bulkUpdateStatus_passesTheVersionsShownAndReportsBillsChangedMeanwhile() throws Exception {
+        Map<Long, Long> versionsById = new LinkedHashMap<>();
+        versionsById.put(1L, 4L);
+        versionsById.put(2L, 0L);
+        versionsById.put(3L, 4L);
+        when(billService.bulkUpdateStatus(versionsById, true)).thenReturn(2);
+
+        mockMvc.perform(post("/bills/bulk-update-status").param("billIds", "1", "2", "3")
+                .param("billVersions", "4", "0", "4").param("isPaid", "true"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/bills"))
+                .andExpect(flash().attribute("successMessage", "Paid 2"))
+                .andExpect(flash().attribute("errorMessage", "Skipped 1"));
+    }
+
+    @Test
+    void bulkUpdateStatus_withoutVersionForEachBillUpdatesNothing() throws Exception {
+        mockMvc.perform(post("/bills/bulk-update-status").param("billIds", "1", "2")
+                .param("billVersions", "4").param("isPaid", "true"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attributeExists("errorMessage"));
+
+        verify(billService, never()).bulkUpdateStatus(any(), anyBoolean());
+    }
+
+    @Test
+    void listBillsByTenant_continuesHistoryFromGivenPeriod() throws Exception {
+        Tenant tenant = new Tenant();
+        tenant.setId(42L);
+        Bill bill = new Bill();
+        bill.setId(7L);
+        bill.setTenant(tenant);
+
+        when(tenantService.getTenantById(42L)).thenReturn(Optional.of(tenant));
+        when(billService.getBillHistory(42L, YearMonth.of(2025, 5), 12))
+                .thenReturn(new BillHistoryDTO(List.of(bill), YearMonth.of(2024, 6)));
+
+        mockMvc.perform(get("/bills/tenant/42").param("before", "2025-05").param("size", "12"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("bills", List.of(bill)))
+                .andExpect(model().attribute("nextBefore", YearMonth.of(2024, 6)));
+
+        verify(billService, Mockito.never()).getBillsByTenant(42L);
+    }
 }
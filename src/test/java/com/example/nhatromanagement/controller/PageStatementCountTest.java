@@ -0,0 +1,133 @@
+package com.example.nhatromanagement.controller;
+
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.MockMvcPrint;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the main pages against N+1 queries: each page must run the same
+ * number of statements, below a fixed bound, however many rooms and bills
+ * there are.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:statements;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.example.nhatromanagement.controller.StatementCounter",
+        "logging.level.root=WARN"
+})
+@AutoConfigureMockMvc(print = MockMvcPrint.NONE)
+@WithMockUser(username = "admin", roles = { "ADMIN", "STAFF" })
+class PageStatementCountTest {
+
+    // Upper bounds per page, raise them only for a deliberate new query. The room
+    // list and billed years come from the query cache.
+    private static final int HOME_MAX_STATEMENTS = 5;
+    private static final int BILL_LIST_MAX_STATEMENTS = 4;
+    private static final int QUICK_ENTRY_MAX_STATEMENTS = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private TenantRepository tenantRepository;
+
+    @Autowired
+    private BillRepository billRepository;
+
+    @Autowired
+    private BillRollupService billRollupService;
+
+    private int roomCount;
+
+    @Test
+    void mainPagesRunBoundedStatementsWhateverTheDataSize() throws Exception {
+        // More bills than one page of the list already, so both runs count its pages
+        seed(30, YearMonth.now().minusMonths(2), 2);
+        int homeSmall = countStatements("/");
+        int billListSmall = countStatements("/bills");
+        int quickEntrySmall = countStatements("/quick-entry");
+
+        seed(60, YearMonth.now().minusMonths(6), 6);
+        int homeLarge = countStatements("/");
+        int billListLarge = countStatements("/bills");
+        int quickEntryLarge = countStatements("/quick-entry");
+
+        assertEquals(homeSmall, homeLarge, "Home page statements grow with the data");
+        assertEquals(billListSmall, billListLarge, "Bill list statements grow with the data");
+        assertEquals(quickEntrySmall, quickEntryLarge, "Quick entry statements grow with the data");
+        assertTrue(homeLarge <= HOME_MAX_STATEMENTS, "Home page ran " + homeLarge + " statements");
+        assertTrue(billListLarge <= BILL_LIST_MAX_STATEMENTS, "Bill list ran " + billListLarge + " statements");
+        assertTrue(quickEntryLarge <= QUICK_ENTRY_MAX_STATEMENTS,
+                "Quick entry ran " + quickEntryLarge + " statements");
+    }
+
+    /**
+     * Renders the page once to warm caches such as the pricing snapshot, then
+     * counts the statements of a second request.
+     */
+    private int countStatements(String url) throws Exception {
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        StatementCounter.reset();
+        mockMvc.perform(get(url)).andExpect(status().isOk());
+        return StatementCounter.statements().size();
+    }
+
+    /**
+     * Adds rooms, each with a bill for every month from the given one on, and
+     * rebuilds the dashboard rollup.
+     */
+    private void seed(int rooms, YearMonth firstPeriod, int months) {
+        List<Tenant> tenants = new ArrayList<>();
+        for (int i = 0; i < rooms; i++) {
+            Tenant tenant = new Tenant();
+            tenant.setName("P" + (++roomCount));
+            tenants.add(tenant);
+        }
+        tenantRepository.saveAll(tenants);
+
+        List<Bill> bills = new ArrayList<>();
+        for (Tenant tenant : tenants) {
+            for (int m = 0; m < months; m++) {
+                YearMonth period = firstPeriod.plusMonths(m);
+                Bill bill = new Bill();
+                bill.setTenant(tenant);
+                bill.setBillYear(period.getYear());
+                bill.setBillMonth(period.getMonthValue());
+                bill.setElectricityKwhPrevious(m * 100);
+                bill.setElectricityKwhCurrent((m + 1) * 100);
+                bill.setWaterM3Previous(m * 10);
+                bill.setWaterM3Current((m + 1) * 10);
+                bill.setRoomRent(1_500_000);
+                bill.setOccupantName(tenant.getName());
+                bill.setPaid(m % 2 == 0);
+                bill.calculateCosts(3500, 15000);
+                bills.add(bill);
+            }
+        }
+        billRepository.saveAll(bills);
+        billRollupService.rebuild();
+    }
+}
@@ -71,4 +71,22 @@ class BillTest {
         assertEquals(0, bill.getElectricityCost());
         assertEquals(0, bill.getWaterCost());
     }
+
+    @Test
+    void calculateCosts_fractionalReadings_roundsToWholeDong() {
+        Bill bill = new Bill();
+        bill.setElectricityKwhPrevious(100);
+        bill.setElectricityKwhCurrent(100.5);
+        bill.setWaterM3Previous(10);
+        bill.setWaterM3Current(10.1);
+        bill.setRoomRent(3000000);
+
+        bill.calculateCosts(3500, 13005);
+
+        assertEquals(1750, bill.getElectricityCost()); // 0.5*3500
+        assertEquals(1301, bill.getWaterCost());       // 0.1*13005 = 1300.5, rounded half up
+        assertEquals(3003051, bill.getTotalAmount());
+        assertEquals(1005, bill.getElectricityKwhCurrentTenths());
+        assertEquals(100.5, bill.getElectricityKwhCurrent());
+    }
 }
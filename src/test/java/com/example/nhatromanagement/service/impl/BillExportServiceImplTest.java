@@ -0,0 +1,172 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BillExportRowDTO;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.service.PdfService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.ZipEntry;
+import java.util.stream.Stream;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+class BillExportServiceImplTest {
+
+    private BillRepository billRepository;
+    private PdfService pdfService;
+    private ThreadPoolTaskExecutor executor;
+    private BillExportServiceImpl exportService;
+
+    @BeforeEach
+    void setUp() {
+        billRepository = Mockito.mock(BillRepository.class);
+        pdfService = Mockito.mock(PdfService.class);
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(8);
+        executor.initialize();
+        // Pages of four bills
+        exportService = new BillExportServiceImpl(billRepository, pdfService, executor,
+                Mockito.mock(EntityManager.class), 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void writePdfArchive_writesOneEntryPerBillInOrderAndReportsFailures() throws Exception {
+        List<Bill> bills = new ArrayList<>();
+        for (long id = 1; id <= 6; id++) {
+            bills.add(bill(id, id <= 2 ? "1A" : "Room " + id)); // Bills 1 and 2 share a room name
+        }
+        for (Bill bill : bills) {
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            pdf.write(("pdf-" + bill.getId()).getBytes(StandardCharsets.UTF_8));
+            when(pdfService.generateBillPdf(eq(bill), any(Locale.class))).thenReturn(pdf);
+        }
+        when(pdfService.generateBillPdf(eq(bills.get(4)), any(Locale.class)))
+                .thenThrow(new IllegalStateException("broken template"));
+        when(billRepository.findWithTenantByFilterAfterId(eq(5), eq(2025), eq(null), eq(0L), any(Pageable.class)))
+                .thenReturn(bills.subList(0, 4));
+        when(billRepository.findWithTenantByFilterAfterId(eq(5), eq(2025), eq(null), eq(4L), any(Pageable.class)))
+                .thenReturn(bills.subList(4, 6));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writePdfArchive(5, 2025, null, Locale.ENGLISH, out);
+
+        List<String> names = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        readZip(out, names, contents);
+
+        assertEquals(List.of("HoaDon_1A_Thang5_Nam2025.pdf", "HoaDon_1A_Thang5_Nam2025_2.pdf",
+                "HoaDon_Room_3_Thang5_Nam2025.pdf", "HoaDon_Room_4_Thang5_Nam2025.pdf",
+                "HoaDon_Room_6_Thang5_Nam2025.pdf", "errors.txt"), names);
+        assertEquals("pdf-3", contents.get(2));
+        assertTrue(contents.get(5).contains("Bill 5: broken template"));
+    }
+
+    @Test
+    void writePdfArchive_rendersOnCallingThreadWhenPoolIsFull() throws Exception {
+        // One worker and no queue, so most renders are rejected by the pool
+        executor.shutdown();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.initialize();
+        exportService = new BillExportServiceImpl(billRepository, pdfService, executor,
+                Mockito.mock(EntityManager.class), 4);
+        List<Bill> bills = new ArrayList<>();
+        for (long id = 1; id <= 3; id++) {
+            bills.add(bill(id, "Room " + id));
+        }
+        when(pdfService.generateBillPdf(any(Bill.class), any(Locale.class))).thenAnswer(invocation -> {
+            Thread.sleep(50);
+            ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+            pdf.write(("pdf-" + invocation.getArgument(0, Bill.class).getId()).getBytes(StandardCharsets.UTF_8));
+            return pdf;
+        });
+        when(billRepository.findWithTenantByIdInAfterId(anyCollection(), eq(0L), any(Pageable.class)))
+                .thenReturn(bills);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writePdfArchive(List.of(3L, 1L, 2L), Locale.ENGLISH, out);
+
+        List<String> names = new ArrayList<>();
+        List<String> contents = new ArrayList<>();
+        readZip(out, names, contents);
+        assertEquals(List.of("HoaDon_Room_1_Thang5_Nam2025.pdf", "HoaDon_Room_2_Thang5_Nam2025.pdf",
+                "HoaDon_Room_3_Thang5_Nam2025.pdf"), names);
+        assertEquals(List.of("pdf-1", "pdf-2", "pdf-3"), contents);
+    }
+
+    @Test
+    void writeCsv_streamsRowsEscapesFormulasAndIgnoresMonthWithoutYear() throws Exception {
+        Stream<BillExportRowDTO> rows = Stream.of(
+                new BillExportRowDTO(7L, "1A", 2025, 5, "Lan, \"Minh\"", 36050, 37120, 2850, 2950, 1600000, 374500,
+                        150000, 30000, 0, 2154500, true, false),
+                new BillExportRowDTO(8L, "=HYPERLINK(\"x\")", 2025, 5, "-Lan", 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, false,
+                        true),
+                new BillExportRowDTO(9L, "\t=1+1", 2025, 5, "\r=SUM(A1)", 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, false,
+                        false));
+        when(billRepository.streamExportRows(null, null, 3L)).thenReturn(rows);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.writeCsv(5, null, 3L, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertTrue(lines[0].startsWith("\uFEFFid,room,period,"));
+        assertEquals("7,1A,2025-05,\"Lan, \"\"Minh\"\"\",3605.0,3712.0,285.0,295.0,1600000,374500,150000,30000,0,"
+                + "2154500,true,false", lines[1]);
+        // Formula-like names are written as text
+        assertEquals("8,\"'=HYPERLINK(\"\"x\"\")\",2025-05,'-Lan,0.0,0.0,0.0,0.0,0,0,0,0,0,0,false,true", lines[2]);
+        assertEquals("9,'\t=1+1,2025-05,\"'\r=SUM(A1)\",0.0,0.0,0.0,0.0,0,0,0,0,0,0,false,false", lines[3]);
+        assertEquals(4, lines.length);
+    }
+
+    private static void readZip(ByteArrayOutputStream out, List<String> names, List<String> contents)
+            throws Exception {
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                names.add(entry.getName());
+                contents.add(new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    private static Bill bill(long id, String roomName) {
+        Tenant tenant = new Tenant();
+        tenant.setId(id);
+        tenant.setName(roomName);
+        Bill bill = new Bill();
+        bill.setId(id);
+        bill.setTenant(tenant);
+        bill.setBillMonth(5);
+        bill.setBillYear(2025);
+        return bill;
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BillImportResultDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import com.example.nhatromanagement.service.SettingService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BillImportServiceImplTest {
+
+    private BillRepository billRepository;
+    private Tenant room;
+    private PlatformTransactionManager transactionManager;
+    private EntityManager entityManager;
+    private BillImportServiceImpl billImportService;
+
+    @BeforeEach
+    void setUp() {
+        TenantRepository tenantRepository = Mockito.mock(TenantRepository.class);
+        billRepository = Mockito.mock(BillRepository.class);
+        SettingService settingService = Mockito.mock(SettingService.class);
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        entityManager = Mockito.mock(EntityManager.class);
+
+        room = new Tenant();
+        room.setId(1L);
+        room.setName("1A");
+        when(tenantRepository.findAll()).thenReturn(List.of(room));
+        when(tenantRepository.getReferenceById(1L)).thenReturn(room);
+        when(settingService.getPricing()).thenReturn(new PricingSnapshot(3500, 15000, 0, 0));
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(anyInt(), anyInt(), anyCollection()))
+                .thenReturn(List.of());
+
+        // Batches of two lines
+        billImportService = new BillImportServiceImpl(tenantRepository, billRepository, settingService,
+                Mockito.mock(BillRollupService.class), transactionManager, entityManager, 2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsv_carriesReadingsAcrossBatchesAndReportsInvalidLines() throws Exception {
+        String csv = "\uFEFFroom,period,electricity,water,roomRent,trashFee,wifiFee\n"
+                + "1A,2025-04,100,10,1600000,30000,0\n"
+                + "1A,2025-05,150.5,12\n"
+                + "2C,2025-05,1,1\n"
+                + "1A,2025-06,140,13\n"
+                + "1A,2025-07,abc,13\n"
+                + "1A,2025-07,160.5,14,,,50000,\"Lan, Minh\"\n";
+
+        BillImportResultDTO result = billImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(6, result.getLineCount());
+        assertEquals(3, result.getImportedCount());
+        assertEquals(List.of("Line 4: Room not found: 2C", "Line 6: Invalid electricity reading: abc",
+                "Line 5: Chỉ số điện mới (140.0) không thể nhỏ hơn chỉ số cũ (150.5)"), result.getErrors());
+
+        ArgumentCaptor<List<Bill>> saved = ArgumentCaptor.forClass(List.class);
+        verify(billRepository, times(2)).saveAll(saved.capture());
+        Bill may = saved.getAllValues().get(0).get(1);
+        assertEquals(100.0, may.getElectricityKwhPrevious());
+        assertEquals(1_600_000 + 30_000 + 176_750 + 30_000, may.getTotalAmount());
+        // June was rejected, so July has no previous month to start from
+        Bill july = saved.getAllValues().get(1).get(0);
+        assertEquals(0.0, july.getElectricityKwhPrevious());
+        assertEquals(561_750, july.getElectricityCost());
+        assertEquals(50_000, july.getWifiFee());
+        assertEquals("Lan, Minh", july.getOccupantName());
+        verify(transactionManager, times(2)).commit(any());
+        // Each batch's bills are let go once it is saved
+        verify(entityManager, times(2)).clear();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void importCsv_fillsBillingRunDraftAndRejectsEnteredBill() throws Exception {
+        Bill draft = new Bill();
+        draft.setTenant(room);
+        draft.setBillYear(2025);
+        draft.setBillMonth(6);
+        draft.setElectricityKwhPrevious(140);
+        draft.setElectricityKwhCurrent(140);
+        draft.setRoomRent(1_600_000);
+        draft.setTrashFee(30_000);
+        draft.setDraft(true);
+        Bill entered = new Bill();
+        entered.setTenant(room);
+        entered.setBillYear(2025);
+        entered.setBillMonth(7);
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(6), eq(2025), anyCollection()))
+                .thenReturn(List.of(draft));
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(7), eq(2025), anyCollection()))
+                .thenReturn(List.of(entered));
+        String csv = "room,period,electricity,water\n"
+                + "1A,2025-06,150,12\n"
+                + "1A,2025-07,160,13\n";
+
+        BillImportResultDTO result = billImportService.importCsv(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(List.of("Line 3: A bill already exists for 1A for 7/2025"), result.getErrors());
+        ArgumentCaptor<List<Bill>> saved = ArgumentCaptor.forClass(List.class);
+        verify(billRepository).saveAll(saved.capture());
+        // The draft itself is updated, starting from the reading it carried
+        assertSame(draft, saved.getValue().get(0));
+        assertFalse(draft.getDraft());
+        assertEquals(140.0, draft.getElectricityKwhPrevious());
+        assertEquals(150.0, draft.getElectricityKwhCurrent());
+        assertEquals(1_600_000 + 30_000 + 35_000 + 180_000, draft.getTotalAmount());
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.model.MonthlyBillRollup;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.MonthlyBillRollupRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+/**
+ * Runs two refreshes of the same period the way two transactions would: each
+ * has saved one bill of its own, the rollup row lock is held until commit, and
+ * a transaction sees its own bill plus the committed ones.
+ */
+class BillRollupServiceImplTest {
+
+    private final Semaphore rowLock = new Semaphore(1);
+    private final AtomicInteger committedBills = new AtomicInteger();
+    private final ThreadLocal<MonthlyBillRollup> lockedRow = new ThreadLocal<>();
+    private volatile long committedBillCount;
+    private BillRollupServiceImpl billRollupService;
+
+    @BeforeEach
+    void setUp() {
+        BillRepository billRepository = Mockito.mock(BillRepository.class);
+        MonthlyBillRollupRepository rollupRepository = Mockito.mock(MonthlyBillRollupRepository.class);
+        when(rollupRepository.findForUpdateByBillYearAndBillMonth(2025, 6))
+                .thenAnswer(invocation -> Optional.of(lockRow()));
+        when(rollupRepository.findForUpdateByPeriodKeyIn(anyCollection()))
+                .thenAnswer(invocation -> List.of(lockRow()));
+        when(billRepository.aggregateRollup(2025, 6)).thenAnswer(invocation -> Optional.of(aggregate()));
+        when(billRepository.aggregateRollupsByPeriodKeyIn(anyCollection()))
+                .thenAnswer(invocation -> List.of(aggregate()));
+        billRollupService = new BillRollupServiceImpl(billRepository, rollupRepository);
+    }
+
+    @Test
+    void refreshPeriod_waitingRefreshCountsTheBillsOfTheOneHoldingTheLock() throws Exception {
+        assertBothBillsCounted(() -> billRollupService.refreshPeriod(2025, 6));
+    }
+
+    @Test
+    void refreshPeriods_waitingRefreshCountsTheBillsOfTheOneHoldingTheLock() throws Exception {
+        assertBothBillsCounted(() -> billRollupService.refreshPeriods(List.of(YearMonth.of(2025, 6))));
+    }
+
+    private void assertBothBillsCounted(Runnable refresh) throws Exception {
+        // The first transaction refreshes and holds the row lock
+        refresh.run();
+        Thread second = new Thread(() -> {
+            refresh.run();
+            commit();
+        });
+        second.start();
+        // Commit the first only once the second is waiting for the lock
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!rowLock.hasQueuedThreads() && second.isAlive() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(rowLock.hasQueuedThreads(), "second refresh did not wait for the row lock");
+        commit();
+        second.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertEquals(2, committedBills.get());
+        assertEquals(2, committedBillCount);
+    }
+
+    private MonthlyBillRollup lockRow() throws InterruptedException {
+        rowLock.acquire();
+        MonthlyBillRollup row = MonthlyBillRollup.empty(2025, 6);
+        row.setBillCount(committedBillCount);
+        lockedRow.set(row);
+        return row;
+    }
+
+    // The committed bills plus the one this transaction saved
+    private MonthlyBillRollup aggregate() {
+        return new MonthlyBillRollup(2025, 6, committedBills.get() + 1, 0, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    private void commit() {
+        committedBills.incrementAndGet();
+        committedBillCount = lockedRow.get().getBillCount();
+        rowLock.release();
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BulkBillResultDTO;
+import com.example.nhatromanagement.dto.BulkMeterReadingDTO;
+import com.example.nhatromanagement.dto.MeterReadingDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import com.example.nhatromanagement.service.SettingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BillServiceImplTest {
+
+    private BillRepository billRepository;
+    private PlatformTransactionManager transactionManager;
+    private BillServiceImpl billService;
+    private final Tenant p101 = tenant(1L, "P101");
+    private final Tenant p102 = tenant(2L, "P102");
+
+    @BeforeEach
+    void setUp() {
+        billRepository = Mockito.mock(BillRepository.class);
+        TenantRepository tenantRepository = Mockito.mock(TenantRepository.class);
+        SettingService settingService = Mockito.mock(SettingService.class);
+        when(settingService.getPricing()).thenReturn(new PricingSnapshot(3500, 15000, 0, 0));
+        when(tenantRepository.findAllById(any())).thenReturn(List.of(p101, p102));
+        when(tenantRepository.findById(2L)).thenReturn(Optional.of(p102));
+        when(billRepository.findByTenantAndBillMonthAndBillYear(p102, 5, 2025)).thenReturn(Optional.empty());
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(5), eq(2025), anyCollection()))
+                .thenReturn(List.of());
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        billService = new BillServiceImpl(billRepository, tenantRepository, settingService,
+                Mockito.mock(BillRollupService.class), transactionManager);
+    }
+
+    @Test
+    void createBill_insertsWithoutLookingForADraftFirst() {
+        when(billRepository.saveAndFlush(any(Bill.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        Bill saved = billService.createBill(2L, 2025, 6, 220.0, 10.0, 0, 0, 2_000_000, "Lan");
+
+        assertEquals(770000, saved.getElectricityCost());
+        verify(billRepository, never()).findByTenantAndBillMonthAndBillYear(p102, 6, 2025);
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void createBill_fillsTheBillingRunDraftOnceTheMonthTurnsOutBilled() {
+        Bill draft = bill(p102, true);
+        draft.setElectricityKwhPrevious(200.0);
+        when(billRepository.saveAndFlush(any(Bill.class)))
+                .thenThrow(periodConflict())
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(billRepository.findByTenantAndBillMonthAndBillYear(p102, 6, 2025)).thenReturn(Optional.of(draft));
+
+        Bill saved = billService.createBill(2L, 2025, 6, 220.0, 10.0, 0, 0, 2_000_000, "Lan");
+
+        assertSame(draft, saved);
+        assertFalse(draft.getDraft());
+        assertEquals(200.0, draft.getElectricityKwhPrevious());
+        assertEquals(70000, draft.getElectricityCost());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    void createBill_reportsTheMonthBilledAlready() {
+        when(billRepository.saveAndFlush(any(Bill.class))).thenThrow(periodConflict());
+        when(billRepository.findByTenantAndBillMonthAndBillYear(p102, 6, 2025))
+                .thenReturn(Optional.of(bill(p102, false)));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> billService.createBill(2L, 2025, 6, 220.0, 10.0, 0, 0, 2_000_000, "Lan"));
+
+        assertEquals("A bill already exists for tenant 2 for 6/2025", e.getMessage());
+        verify(billRepository, times(1)).saveAndFlush(any(Bill.class));
+    }
+
+    @Test
+    void createBills_reportsOnlyTheRoomBilledByAnotherUserMeanwhile() {
+        Bill entered = bill(p102, false);
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(6), eq(2025), anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(entered));
+        doThrow(periodConflict()).doNothing().when(billRepository).flush();
+
+        BulkBillResultDTO result = billService.createBills(entry());
+
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(List.of("P102: A bill already exists for tenant 2 for 6/2025"), result.getErrors());
+        verify(transactionManager, times(1)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void createBills_fillsTheDraftLeftByABillingRunMeanwhile() {
+        Bill draft = bill(p102, true);
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(6), eq(2025), anyCollection()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(draft));
+        doThrow(periodConflict()).doNothing().when(billRepository).flush();
+
+        BulkBillResultDTO result = billService.createBills(entry());
+
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(List.of(), result.getErrors());
+        assertFalse(draft.getDraft());
+        assertEquals(220.0, draft.getElectricityKwhCurrent());
+    }
+
+    @Test
+    void createBills_givesUpWhenTheRetryConflictsAgain() {
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(6), eq(2025), anyCollection()))
+                .thenReturn(List.of());
+        doThrow(periodConflict()).when(billRepository).flush();
+
+        assertThrows(IllegalStateException.class, () -> billService.createBills(entry()));
+        verify(transactionManager, times(2)).rollback(any());
+    }
+
+    @Test
+    void createBills_doesNotRetryOtherConstraintViolations() {
+        when(billRepository.findByBillMonthAndBillYearAndTenantIdIn(eq(6), eq(2025), anyCollection()))
+                .thenReturn(List.of());
+        doThrow(new DataIntegrityViolationException("not null")).doNothing().when(billRepository).flush();
+
+        assertThrows(DataIntegrityViolationException.class, () -> billService.createBills(entry()));
+        verify(transactionManager, times(1)).getTransaction(any());
+    }
+
+    private BulkMeterReadingDTO entry() {
+        BulkMeterReadingDTO entry = new BulkMeterReadingDTO();
+        entry.setBillMonth(6);
+        entry.setBillYear(2025);
+        entry.getReadings().add(reading(p101, 110.0));
+        entry.getReadings().add(reading(p102, 220.0));
+        return entry;
+    }
+
+    private static MeterReadingDTO reading(Tenant tenant, double electricity) {
+        MeterReadingDTO reading = new MeterReadingDTO();
+        reading.setTenantId(tenant.getId());
+        reading.setTenantName(tenant.getName());
+        reading.setElectricityCurrent(electricity);
+        reading.setWaterCurrent(10.0);
+        reading.setRoomRent(2_000_000);
+        return reading;
+    }
+
+    private static Bill bill(Tenant tenant, boolean draft) {
+        Bill bill = new Bill();
+        bill.setTenant(tenant);
+        bill.setBillMonth(6);
+        bill.setBillYear(2025);
+        bill.setDraft(draft);
+        return bill;
+    }
+
+    private static DataIntegrityViolationException periodConflict() {
+        return new DataIntegrityViolationException("could not execute batch", new SQLException(
+                "duplicate key value violates unique constraint \"" + Bill.UNIQUE_PERIOD_CONSTRAINT + "\""));
+    }
+
+    private static Tenant tenant(Long id, String name) {
+        Tenant tenant = new Tenant();
+        tenant.setId(id);
+        tenant.setName(name);
+        return tenant;
+    }
+}
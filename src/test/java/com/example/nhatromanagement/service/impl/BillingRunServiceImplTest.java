@@ -0,0 +1,107 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.BillingRunDTO;
+import com.example.nhatromanagement.dto.PricingSnapshot;
+import com.example.nhatromanagement.model.Bill;
+import com.example.nhatromanagement.model.Tenant;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import com.example.nhatromanagement.service.SettingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BillingRunServiceImplTest {
+
+    private TenantRepository tenantRepository;
+    private BillRepository billRepository;
+    private BillRollupService billRollupService;
+    private PlatformTransactionManager transactionManager;
+    private BillingRunServiceImpl billingRunService;
+
+    @BeforeEach
+    void setUp() {
+        tenantRepository = Mockito.mock(TenantRepository.class);
+        billRepository = Mockito.mock(BillRepository.class);
+        billRollupService = Mockito.mock(BillRollupService.class);
+        SettingService settingService = Mockito.mock(SettingService.class);
+        when(settingService.getPricing()).thenReturn(new PricingSnapshot(3500, 15000, 0, 0));
+        transactionManager = Mockito.mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        // Chunks of one room, run on the calling thread
+        billingRunService = new BillingRunServiceImpl(tenantRepository, billRepository, settingService,
+                billRollupService, transactionManager, new SyncTaskExecutor(), 1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startRun_createsDraftsCarryingForwardLatestBillAndReportsFailedChunks() {
+        Tenant billed = tenant(1L, "P101");
+        Tenant fresh = tenant(2L, "P102");
+        Bill latest = new Bill();
+        latest.setTenant(billed);
+        latest.setElectricityKwhCurrent(120.5);
+        latest.setWaterM3Current(30);
+        latest.setRoomRent(2_000_000);
+        latest.setTrashFee(20_000);
+        latest.setWifiFee(50_000);
+        latest.setOccupantName("Lan");
+
+        when(tenantRepository.findIdsWithoutBillFor(2025, 6)).thenReturn(List.of(1L, 2L, 3L));
+        when(tenantRepository.findAllById(List.of(1L))).thenReturn(List.of(billed));
+        when(tenantRepository.findAllById(List.of(2L))).thenReturn(List.of(fresh));
+        when(tenantRepository.findAllById(List.of(3L))).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(billRepository.findLatestBillBeforePeriodByTenantIdIn(List.of(1L), 2025 * 12 + 5))
+                .thenReturn(List.of(latest));
+
+        BillingRunDTO run = billingRunService.startRun(YearMonth.of(2025, 6));
+
+        assertEquals(BillingRunDTO.Status.COMPLETED_WITH_ERRORS, run.getStatus());
+        assertEquals(3, run.getChunkCount());
+        assertEquals(3, run.getFinishedChunkCount());
+        assertEquals(2, run.getCreatedCount());
+        assertEquals(1, run.getFailedCount());
+        assertTrue(run.getErrors().get(0).startsWith("Rooms 3-3: duplicate"));
+
+        ArgumentCaptor<List<Bill>> saved = ArgumentCaptor.forClass(List.class);
+        verify(billRepository, times(2)).saveAll(saved.capture());
+        Bill carried = saved.getAllValues().get(0).get(0);
+        assertTrue(carried.getDraft());
+        assertEquals(120.5, carried.getElectricityKwhPrevious());
+        assertEquals(120.5, carried.getElectricityKwhCurrent());
+        assertEquals(2_070_000, carried.getTotalAmount());
+        assertEquals("Lan", carried.getOccupantName());
+        Bill first = saved.getAllValues().get(1).get(0);
+        assertEquals(0, first.getTotalAmount());
+        assertEquals("P102", first.getOccupantName());
+
+        // Each chunk commits on its own, the failed one rolls back
+        verify(transactionManager, times(2)).commit(any());
+        verify(transactionManager, times(1)).rollback(any());
+        // Once in each committed chunk, once more at the end for the failed one
+        verify(billRollupService, times(3)).refreshPeriod(2025, 6);
+    }
+
+    private static Tenant tenant(Long id, String name) {
+        Tenant tenant = new Tenant();
+        tenant.setId(id);
+        tenant.setName(name);
+        return tenant;
+    }
+}
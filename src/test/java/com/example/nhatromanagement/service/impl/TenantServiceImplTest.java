@@ -0,0 +1,67 @@
+package com.example.nhatromanagement.service.impl;
+
+import com.example.nhatromanagement.dto.TenantDeletionResultDTO;
+import com.example.nhatromanagement.repository.BillRepository;
+import com.example.nhatromanagement.repository.TenantRepository;
+import com.example.nhatromanagement.service.BillRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TenantServiceImplTest {
+
+    private TenantRepository tenantRepository;
+    private BillRepository billRepository;
+    private BillRollupService billRollupService;
+    private TenantServiceImpl tenantService;
+
+    @BeforeEach
+    void setUp() {
+        tenantRepository = Mockito.mock(TenantRepository.class);
+        billRepository = Mockito.mock(BillRepository.class);
+        billRollupService = Mockito.mock(BillRollupService.class);
+        tenantService = new TenantServiceImpl(tenantRepository, billRepository, billRollupService);
+    }
+
+    @Test
+    void deleteTenant_archivesThenDeletesBillsInBulkAndRefreshesTheirPeriods() {
+        when(tenantRepository.existsById(5L)).thenReturn(true);
+        when(billRepository.findPeriodKeysByTenantId(5L)).thenReturn(List.of(2025 * 12 + 3, 2025 * 12 + 4));
+        when(billRepository.archiveByTenantId(5L)).thenReturn(2);
+        when(billRepository.deleteByTenantId(5L)).thenReturn(2);
+
+        TenantDeletionResultDTO result = tenantService.deleteTenant(5L, true);
+
+        assertEquals(new TenantDeletionResultDTO(2, 2), result);
+        InOrder inOrder = Mockito.inOrder(billRepository, tenantRepository, billRollupService);
+        inOrder.verify(billRepository).archiveByTenantId(5L);
+        inOrder.verify(billRepository).deleteByTenantId(5L);
+        inOrder.verify(tenantRepository).deleteAllByIdInBatch(List.of(5L));
+        inOrder.verify(billRollupService).refreshPeriods(List.of(YearMonth.of(2025, 4), YearMonth.of(2025, 5)));
+        verify(tenantRepository, never()).findById(anyLong());
+    }
+
+    @Test
+    void deleteTenant_withoutArchiveSkipsTheArchiveAndUnknownTenantIsRejected() {
+        when(tenantRepository.existsById(5L)).thenReturn(true);
+        when(billRepository.deleteByTenantId(5L)).thenReturn(3);
+
+        assertEquals(new TenantDeletionResultDTO(3, 0), tenantService.deleteTenant(5L, false));
+        verify(billRepository, never()).archiveByTenantId(anyLong());
+
+        assertThrows(IllegalArgumentException.class, () -> tenantService.deleteTenant(6L, true));
+        verify(billRollupService, Mockito.times(1)).refreshPeriods(any());
+    }
+}